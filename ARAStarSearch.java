@@ -1,110 +1,187 @@
 import java.nio.file.Path;
 import java.util.*;
 
-// Implements the Anytime Repairing A* search algorithm.
+// Implements the Anytime Repairing A* search algorithm. Between iterations the f' values of open change with the
+// weight, so open is re-keyed in place and rebuilt as a heap in linear time. The lowest f value over open and incons,
+// which bounds how far the incumbent can be from optimal, is kept up to date by counting how many nodes in open and
+// incons have each f value as nodes come and go.
 public class ARAStarSearch extends Search{
 
+    private final IndexedHeapOpenList open;
+
     private double weightDecrease;
+    private int iterations;
+
+    // For each f value, how many nodes in open and incons have it, along with how many nodes that is in total and the
+    // lowest f value that might still have any.
+    private int[] fCounts;
+    private int counted;
+    private int minf;
+
+    // The weight of the last call to improvePath() that finished, which bounds how far from optimal its solution is.
+    private double completedWeight;
 
     // ARA* requires files containing the 15 puzzle to be solved, what the solved state looks like, what heuristic to
     // use, what weight to use for the heuristic, and how much to decrease the weight by after each call to
     // improvePath().
     public ARAStarSearch(Path fileName, Path goal, int heuristicType, double weight, double weightDecrease) {
-        super();
+        this(new SearchContext(new Puzzle(goal), heuristicType, weight), new Puzzle(fileName), weightDecrease);
+    }
+
+    // Solves the puzzle for the goal and heuristic in the context, starting from the context's weight. The context's
+    // weight is lowered as the search goes on, so the context can't be shared with another search.
+    public ARAStarSearch(SearchContext context, Puzzle start, double weightDecrease) {
+        super(context);
+        requirePackedBoards(context);
 
         this.weightDecrease = weightDecrease;
+        completedWeight = Double.MAX_VALUE;
 
-        Node.setGoal(goal);
-        Node.setHeuristicType(heuristicType);
-        Node.setWeight(weight);
+        fCounts = new int[64];
+        counted = 0;
+        minf = 0;
 
-        PriorityQueue<Node> open = new PriorityQueue<>(Comparator.comparingDouble(Node::getfPrimeValue));
-        open.add(new Node(fileName));
+        Node root = new Node(start, context);
+        open = new IndexedHeapOpenList(Comparator.comparingDouble(Node::getfPrimeValue));
+        open.add(root);
+        count(root, 1);
         setOpen(open);
 
-        setIncons(new HashMap<>());
-        setClosed(new HashMap<>());
+        setIncons(new NodeTable());
+        setClosed(newClosed());
 
         setIncumbent(new Node());
     }
 
     // Until the terminationWeight drops to 1 or lower, calls to improvePath() are made in an effort to refine the
-    // search.
+    // search. If the budget runs out first, the current solution is returned along with how far from optimal it can be.
     @Override
     public Node search() {
-        long startTime = System.currentTimeMillis();
+        long startTime = startClock();
 
-        improvePath();
+        try {
+            improvePath();
 
-        double terminationWeight = Math.min(Node.getWeight(), getIncumbent().getfValue() / minInconsistentVal());
+            double terminationWeight = Math.min(getContext().getWeight(),
+                    getIncumbent().getfValue() / minInconsistentVal());
 
-        while (terminationWeight > 1) {
-            Node.setWeight(Node.getWeight() - weightDecrease);
+            while (terminationWeight > 1 && !isBudgetExhausted()) {
+                getContext().setWeight(getContext().getWeight() - weightDecrease);
 
-            mergeInconsToOpen();
-            updateOpen();
+                updateOpen();
+                mergeInconsToOpen();
 
-            getClosed().clear();
-            getIncons().clear();
+                getClosed().clear();
+                getIncons().clear();
 
-            improvePath();
+                improvePath();
 
-            terminationWeight = Math.min(Node.getWeight(), getIncumbent().getfValue() / minInconsistentVal());
-        }
+                terminationWeight = Math.min(getContext().getWeight(),
+                        getIncumbent().getfValue() / minInconsistentVal());
+            }
 
-        long endTime = System.currentTimeMillis();
-        setRunTime(startTime, endTime);
-        return getIncumbent();
+            if (isBudgetExhausted()) {
+                if (getIncumbent().getgValue() == Integer.MAX_VALUE) {
+                    throw new BudgetExhaustedException();
+                }
+
+                setSuboptimalityBound(Math.min(completedWeight, suboptimality(getIncumbent(), lowerBound())));
+            }
+
+            long endTime = System.nanoTime();
+            setRunTime(startTime, endTime);
+            closeIncumbents(null);
+            return getIncumbent();
+        } catch (RuntimeException e) {
+            closeIncumbents(e);
+            throw e;
+        }
     }
 
     // Until we shouldn't search anymore, we get the node from open with the lowest f' value, visit it, then process
-    // each of its successors.
+    // each of its successors. Each call is recorded as an iteration event at the current weight.
     private void improvePath() {
+        SearchEvents.IterationEvent event = SearchEvents.beginIteration();
+        long startExpanded = getNumExpanded();
+        iterations++;
+
         while (!terminate()) {
+            checkCancelled();
+
+            if (checkBudget()) {
+                break;
+            }
+
             Node node = getOpen().poll();
+            count(node, -1);
+            setBound(node.getfValue());
 
             if (node.isGoal()) {
                 setIncumbent(node);
+
+                if (hasIncumbentSubscribers()) {
+                    publishIncumbent(lowerBound());
+                }
             }
 
-            getClosed().put(node.getPuzzle(), node);
+            getClosed().put(node.getBoard(), node.getgValue());
 
             incrementSizeClosed();
 
-            for (Node successor : node.getSuccessors()) {
+            List<Node> successors = expand(node);
+
+            long phaseStart = getPhaseTimer().start();
+            for (Node successor : successors) {
                 processSuccessor(successor);
 
                 setMaxIncons();
                 setMaxOpenClosedIncons();
             }
+            getPhaseTimer().stop(PhaseTimer.DUPLICATE_DETECTION, phaseStart);
+        }
+
+        SearchEvents.endIteration(event, this, iterations, getContext().getWeight(), getNumExpanded() - startExpanded);
+
+        if (!isBudgetExhausted()) {
+            completedWeight = Math.max(1, getContext().getWeight());
         }
     }
 
+    // The lowest f value of the current solution and every node in open and incons, which is a lower bound on the
+    // length of an optimal solution.
+    private double lowerBound() {
+        return Math.min(getIncumbent().getfValue(), minInconsistentVal());
+    }
+
     // If closed nor open contain the successor, just add the node to open. If closed doesn't contain the successor but
     // open does, update open if the successor has a smaller f' value than the node in open. If closed contains the
     // successor but incons doesn't, add the node to incons. If closed and incons contain the successor, update incons
     // if the successor has a smaller f' value than the node in incons.
     @Override
     protected void processSuccessor(Node node) {
-        if (!getClosed().containsKey(node.getPuzzle())) {
+        if (!getClosed().containsKey(node.getBoard())) {
             if (!getOpen().contains(node)) {
                 getOpen().add(node);
+                count(node, 1);
 
                 incrementSizeOpen();
 
             } else if (node.getfPrimeValue() < getFromOpen(node).getfPrimeValue()){
-                getOpen().remove(node);
-                getOpen().add(node);
+                count(getFromOpen(node), -1);
+                getOpen().update(node);
+                count(node, 1);
             }
 
         } else {
-            if (!getIncons().containsKey(node.getPuzzle()) &&
-                    node.getfPrimeValue() < getFromClosed(node).getfPrimeValue()) {
-                getIncons().put(node.getPuzzle(), node);
+            if (!getIncons().containsKey(node.getBoard()) && node.getgValue() < getClosedgValue(node)) {
+                getIncons().put(node);
+                count(node, 1);
 
-            } else if (getIncons().containsKey(node.getPuzzle()) &&
+            } else if (getIncons().containsKey(node.getBoard()) &&
                     node.getfPrimeValue() < getFromIncons(node).getfPrimeValue()) {
-                getIncons().put(node.getPuzzle(), node);
+                count(getFromIncons(node), -1);
+                getIncons().put(node);
+                count(node, 1);
             }
         }
     }
@@ -117,43 +194,51 @@ public class ARAStarSearch extends Search{
         return getOpen().isEmpty() || (getIncumbent().getfPrimeValue() <= getOpen().peek().getfPrimeValue());
     }
 
-    // Finds the node with the minimum f value in incons and open. An iterative search has to be used for incons
-    // because it is a hashMap. An iterative search has to be used for open because open is sorted by f' value, not
-    // f value.
+    // Returns the lowest f value of any node in open or incons, or Integer.MAX_VALUE if both are empty. The lowest
+    // count that can be non-zero only moves up as nodes leave, so finding it again is cheap over the whole search.
     private double minInconsistentVal() {
-        double min = Integer.MAX_VALUE;
-        for (Node cur : getIncons().values()) {
-            if (cur.getfValue() < min) {
-                min = cur.getfValue();
-            }
+        if (counted == 0) {
+            return Integer.MAX_VALUE;
         }
 
-        for (Iterator it = getOpen().iterator(); it.hasNext();) {
-            Node cur = (Node)it.next();
-            if (cur.getfValue() < min) {
-                min = cur.getfValue();
-            }
+        while (fCounts[minf] == 0) {
+            minf++;
         }
 
-        return min;
+        return minf;
     }
 
-    // Updates all the nodes' f' values in open according to the new weight value.
+    // Records a node entering (change 1) or leaving (change -1) open or incons. Moving a node from incons to open
+    // doesn't change anything.
+    private void count(Node node, int change) {
+        int f = node.getfValue();
+        if (f >= fCounts.length) {
+            fCounts = Arrays.copyOf(fCounts, Math.max(f + 1, fCounts.length * 2));
+        }
+
+        fCounts[f] += change;
+        counted += change;
+
+        if (change > 0) {
+            minf = Math.min(minf, f);
+        }
+    }
+
+    // Gives every node in open its f' value for the new weight in place, then restores the heap order in one pass.
     private void updateOpen() {
-        PriorityQueue<Node> newQueue = new PriorityQueue<>(Comparator.comparingDouble(Node::getfPrimeValue));
-        while (!getOpen().isEmpty()) {
-            Node node = getOpen().poll();
+        for (Node node : open) {
             node.calcfPrimeValue();
-            newQueue.add(node);
         }
 
-        setOpen(newQueue);
+        open.heapify();
     }
 
-    // Moves all the nodes in incons to open.
+    // Moves all the nodes in incons to open, with their f' values for the new weight. Incons only holds nodes that were
+    // closed, so none of them are in open already, and there are usually few enough to add one at a time.
     private void mergeInconsToOpen() {
         for (Node node : getIncons().values()) {
-            getOpen().add(node);
+            node.calcfPrimeValue();
+            open.add(node);
 
             incrementSizeOpen();
         }
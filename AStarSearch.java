@@ -1,61 +1,170 @@
 import java.nio.file.Path;
-import java.util.*;
+import java.util.Comparator;
+import java.util.List;
 
 // Implements the A* search algorithm
 public class AStarSearch extends Search {
 
+    // Constants that represent each open list implementation A* can use.
+    public static final int HEAP_OPEN_LIST = 0;
+    public static final int BUCKET_OPEN_LIST = 1;
+    public static final int ARENA_OPEN_LIST = 2;
+
+    // Only used with the arena open list, which keeps nodes in the arena instead of as Nodes.
+    private Node root;
+    private NodeArena arena;
+    private ArenaOpenList arenaOpen;
+
     // A* requires files containing the 15 puzzle to be solved, what the solved state looks like, and what heuristic to
-    // use.
+    // use. A binary heap is used for the open list.
     public AStarSearch(Path fileName, Path goal, int heuristicType) {
-        super();
+        this(fileName, goal, heuristicType, HEAP_OPEN_LIST);
+    }
 
-        Node.setGoal(goal);
-        Node.setHeuristicType(heuristicType);
+    // Same as above, but also takes which open list implementation to use. The bucket open list polls in constant
+    // time and breaks ties on f in favor of deeper nodes.
+    public AStarSearch(Path fileName, Path goal, int heuristicType, int openListType) {
+        this(new SearchContext(new Puzzle(goal), heuristicType), new Puzzle(fileName), openListType);
+    }
 
-        PriorityQueue<Node> open = new PriorityQueue<>(Comparator.comparingInt(Node::getfValue));
-        open.add(new Node(fileName));
-        setOpen(open);
+    // Solves the puzzle for the goal and heuristic in the context, using the specified open list implementation.
+    public AStarSearch(SearchContext context, Puzzle start, int openListType) {
+        super(context);
+        requirePackedBoards(context);
+
+        if (openListType == ARENA_OPEN_LIST) {
+            root = new Node(start, context);
+            arena = new NodeArena();
+            arenaOpen = new ArenaOpenList(arena);
+            arenaOpen.add(arena.add(root.getBoard(), root.getEmptySpace(), 0, root.getHeuristic(),
+                    NodeArena.NO_PARENT));
+        } else {
+            OpenList open = createOpen(openListType);
+            open.add(new Node(start, context));
+            setOpen(open);
+        }
 
-        setClosed(new HashMap<>());
+        setClosed(newClosed());
+    }
+
+    private static OpenList createOpen(int openListType) {
+        switch (openListType) {
+            case HEAP_OPEN_LIST:
+                return new HeapOpenList(Comparator.comparingInt(Node::getfValue));
+            case BUCKET_OPEN_LIST:
+                return new BucketOpenList();
+            default:
+                throw new IllegalArgumentException("Unknown open list type: " + openListType);
+        }
     }
 
     // Until the goal state is found, the node with the lowest f value is visited. The successors to that node are
     // then found and added to the open list if they weren't visited already.
     @Override
     public Node search() {
-        long startTime = System.currentTimeMillis();
+        if (arena != null) {
+            return searchArena();
+        }
+
+        long startTime = startClock();
 
         while (!terminate()) {
+            checkCancelled();
+
             Node node = getOpen().poll();
+            setBound(node.getfValue());
 
             if (node.isGoal()) {
-                long endTime = System.currentTimeMillis();
+                long endTime = System.nanoTime();
                 setRunTime(startTime, endTime);
 
                 return node;
             }
 
-            getClosed().put(node.getPuzzle(), node);
+            getClosed().put(node.getBoard(), node.getgValue());
 
             incrementSizeClosed();
 
-            for (Node successor : node.getSuccessors()) {
+            List<Node> successors = expand(node);
+
+            long phaseStart = getPhaseTimer().start();
+            for (Node successor : successors) {
                 processSuccessor(successor);
 
                 setMaxOpenClosed();
             }
+            getPhaseTimer().stop(PhaseTimer.DUPLICATE_DETECTION, phaseStart);
         }
 
         // Will probably not be reached even if an unsolvable puzzle was entered due to how many permutations there are
         throw new RuntimeException("ERROR: No solution found");
     }
 
+    // The same search as above on the node arena. Successors are worked out straight from the parent's packed board
+    // and only stored if they aren't in closed, so no Nodes are made until the solution is found.
+    private Node searchArena() {
+        long startTime = startClock();
+
+        int[][] moves = getContext().getMoves();
+        Heuristic heuristic = getContext().getHeuristic();
+        long goal = getContext().getGoal();
+        PhaseTimer timer = getPhaseTimer();
+
+        while (!terminate()) {
+            checkCancelled();
+
+            int index = arenaOpen.poll();
+            long board = arena.getBoard(index);
+            int gValue = arena.getgValue(index);
+            setBound(arena.getfValue(index));
+
+            if (board == goal) {
+                Node solution = arena.toNode(index, root);
+
+                long endTime = System.nanoTime();
+                setRunTime(startTime, endTime);
+
+                return solution;
+            }
+
+            getClosed().put(board, gValue);
+
+            incrementSizeClosed();
+
+            int emptySpace = arena.getEmptySpace(index);
+            int h = arena.getHeuristic(index);
+            for (int move : moves[emptySpace]) {
+                long phaseStart = timer.start();
+                long successor = PackedBoard.move(board, emptySpace, move);
+                timer.stop(PhaseTimer.EXPANSION, phaseStart);
+
+                phaseStart = timer.start();
+                boolean closed = getClosed().containsKey(successor);
+                timer.stop(PhaseTimer.DUPLICATE_DETECTION, phaseStart);
+                if (closed) {
+                    continue;
+                }
+
+                phaseStart = timer.start();
+                int successorh = h + heuristic.delta(board, PackedBoard.getValue(board, move), move, emptySpace);
+                timer.stop(PhaseTimer.HEURISTIC, phaseStart);
+
+                arenaOpen.add(arena.add(successor, move, gValue + 1, successorh, index));
+                incrementSizeOpen();
+
+                setMaxOpenClosed(arenaOpen.size() + getClosed().size());
+            }
+        }
+
+        throw new RuntimeException("ERROR: No solution found");
+    }
+
     // Determines what to do with each successor node.
     @Override
     protected void processSuccessor(Node node) {
         // Checks to see if open contains the successor. If so, then if the successor's f value is smaller than the
         // node in open's f value, the node in open will be updated. This is slower, but more memory efficient.
-//        if (!getClosed().containsKey(node.getPuzzle())) {
+//        if (!getClosed().containsKey(node.getBoard())) {
 //            if (!getOpen().contains(node)) {
 //                getOpen().add(node);
 //
@@ -68,7 +177,7 @@ public class AStarSearch extends Search {
 //            }
 //        }
         // Adds the successor to open as long as it isn't in closed. This is faster but less memory efficient.
-        if (!getClosed().containsKey(node.getPuzzle())) {
+        if (!getClosed().containsKey(node.getBoard())) {
             getOpen().add(node);
             incrementSizeOpen();
         }
@@ -78,7 +187,7 @@ public class AStarSearch extends Search {
     // and a solution was not found.
     @Override
     protected boolean terminate() {
-        return getOpen().isEmpty();
+        return arena != null ? arenaOpen.isEmpty() : getOpen().isEmpty();
     }
 
 }
@@ -1,7 +1,6 @@
 import java.nio.file.Path;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.PriorityQueue;
+import java.util.List;
 
 // Implements the Anytime Weighted A* search algorithm.
 public class AnytimeWAStarSearch extends Search {
@@ -9,46 +8,91 @@ public class AnytimeWAStarSearch extends Search {
     // Anytime WA* requires files containing the 15 puzzle to be solved, what the solved state looks like, what
     // heuristic to use, and what weight to use for the heuristic.
     public AnytimeWAStarSearch(Path fileName, Path goal, int heuristicType, double weight) {
-        super();
+        this(new SearchContext(new Puzzle(goal), heuristicType, weight), new Puzzle(fileName));
+    }
 
-        Node.setGoal(goal);
-        Node.setHeuristicType(heuristicType);
-        Node.setWeight(weight);
+    // Solves the puzzle for the goal, heuristic, and weight in the context.
+    public AnytimeWAStarSearch(SearchContext context, Puzzle start) {
+        super(context);
+        requirePackedBoards(context);
 
-        PriorityQueue<Node> open = new PriorityQueue<>(Comparator.comparingDouble(Node::getfPrimeValue));
-        open.add(new Node(fileName));
+        OpenList open = new IndexedHeapOpenList(Comparator.comparingDouble(Node::getfPrimeValue));
+        open.add(new Node(start, context));
         setOpen(open);
 
-        setClosed(new HashMap<>());
+        setClosed(newClosed());
     }
 
     // Until open is empty, the node with the least f' value is visited if its f value is less than the current
     // solution's f value (so if the lower bound of the node is less than the absolute upper bound). The successors
-    // to that node are then processed accordingly.
+    // to that node are then processed accordingly. If the budget runs out first, the current solution is returned
+    // along with how far from optimal it can be. Every better solution is published once all of the successors it was
+    // found among are in open, since the bound is worked out from open.
     @Override
     public Node search() {
-        long startTime = System.currentTimeMillis();
+        long startTime = startClock();
+
+        try {
+            while (!terminate()) {
+                checkCancelled();
+
+                if (checkBudget()) {
+                    break;
+                }
 
-        while (!terminate()) {
-            Node node = getOpen().poll();
+                Node node = getOpen().poll();
 
-            if (getIncumbent() == null || node.getfValue() < getIncumbent().getfValue()) {
-                getClosed().put(node.getPuzzle(), node);
+                if (getIncumbent() == null || node.getfValue() < getIncumbent().getfValue()) {
+                    Node incumbent = getIncumbent();
 
-                incrementSizeClosed();
+                    setBound(node.getfValue());
+                    getClosed().put(node.getBoard(), node.getgValue());
 
-                for (Node successor : node.getSuccessors()) {
-                    processSuccessor(successor);
+                    incrementSizeClosed();
 
-                    setMaxOpenClosed();
+                    List<Node> successors = expand(node);
+
+                    long phaseStart = getPhaseTimer().start();
+                    for (Node successor : successors) {
+                        processSuccessor(successor);
+
+                        setMaxOpenClosed();
+                    }
+                    getPhaseTimer().stop(PhaseTimer.DUPLICATE_DETECTION, phaseStart);
+
+                    if (getIncumbent() != incumbent && hasIncumbentSubscribers()) {
+                        publishIncumbent(lowerBound());
+                    }
                 }
+            }
 
+            if (isBudgetExhausted()) {
+                if (getIncumbent() == null) {
+                    throw new BudgetExhaustedException();
+                }
+
+                setSuboptimalityBound(suboptimality(getIncumbent(), lowerBound()));
             }
+
+            long endTime = System.nanoTime();
+            setRunTime(startTime, endTime);
+            closeIncumbents(null);
+            return getIncumbent();
+        } catch (RuntimeException e) {
+            closeIncumbents(e);
+            throw e;
         }
+    }
 
-        long endTime = System.currentTimeMillis();
-        setRunTime(startTime, endTime);
-        return getIncumbent();
+    // The lowest f value of the current solution and every node in open. Any better solution has to go through a node
+    // in open, so this is a lower bound on the length of an optimal solution.
+    private double lowerBound() {
+        int min = getIncumbent().getfValue();
+        for (Node node : getOpen()) {
+            min = Math.min(min, node.getfValue());
+        }
+
+        return min;
     }
 
     // If the successor's f value (lower bound) is larger than the absolute upper bound, then we don't want to do
@@ -67,19 +111,17 @@ public class AnytimeWAStarSearch extends Search {
         if (node.isGoal()) {
             setIncumbent(node);
 
-        } else if (getClosed().containsKey(node.getPuzzle()) &&
-                node.getfValue() < getFromClosed(node).getfValue()) {
+        } else if (getClosed().containsKey(node.getBoard()) && node.getgValue() < getClosedgValue(node)) {
             getOpen().add(node);
-            getClosed().remove(node.getPuzzle());
+            getClosed().remove(node.getBoard());
 
             incrementNumMoved();
 
         } else if (getOpen().contains(node) &&
                 node.getfValue() < getFromOpen(node).getfValue())  {
-            getOpen().remove(node);
-            getOpen().add(node);
+            getOpen().update(node);
 
-        } else if (!getOpen().contains(node) && !getClosed().containsKey(node.getPuzzle())) {
+        } else if (!getOpen().contains(node) && !getClosed().containsKey(node.getBoard())) {
             getOpen().add(node);
 
             incrementSizeOpen();
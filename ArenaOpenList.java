@@ -0,0 +1,122 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// The bucket open list for nodes kept in a NodeArena. It orders nodes exactly like BucketOpenList, by lowest f value
+// and then highest g value, last in first out within a bucket, but its buckets are stacks of int indices into the
+// arena instead of deques of Nodes, so adding a node costs four bytes and no allocation once a bucket has grown.
+public class ArenaOpenList {
+
+    // Returned by poll() and peek() when the open list is empty.
+    public static final int EMPTY = -1;
+
+    // All the nodes with one f value, bucketed by g value. Since the heuristic is never negative, g is at most f.
+    private static class Layer {
+        private final List<IntStack> buckets = new ArrayList<>();
+        private int size = 0;
+        private int maxg = 0;
+    }
+
+    // A growable stack of ints.
+    private static class IntStack {
+        private int[] items = new int[16];
+        private int size = 0;
+
+        private void push(int item) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = item;
+        }
+
+        private int pop() {
+            return items[--size];
+        }
+
+        private int peek() {
+            return items[size - 1];
+        }
+    }
+
+    private final NodeArena arena;
+    private final List<Layer> layers;
+    private int minf;
+    private int size;
+
+    public ArenaOpenList(NodeArena arena) {
+        this.arena = arena;
+        layers = new ArrayList<>();
+        minf = 0;
+        size = 0;
+    }
+
+    // Adds the node at the index in the arena.
+    public void add(int index) {
+        int f = arena.getfValue(index);
+        int g = arena.getgValue(index);
+
+        while (layers.size() <= f) {
+            layers.add(new Layer());
+        }
+
+        Layer layer = layers.get(f);
+        while (layer.buckets.size() <= g) {
+            layer.buckets.add(new IntStack());
+        }
+
+        layer.buckets.get(g).push(index);
+        layer.size++;
+        layer.maxg = Math.max(layer.maxg, g);
+
+        if (size == 0 || f < minf) {
+            minf = f;
+        }
+
+        size++;
+    }
+
+    // Removes and returns the index of the best node, or EMPTY if there isn't one.
+    public int poll() {
+        IntStack bucket = bestBucket();
+        if (bucket == null) {
+            return EMPTY;
+        }
+
+        layers.get(minf).size--;
+        size--;
+
+        return bucket.pop();
+    }
+
+    // Returns the index of the best node without removing it, or EMPTY if there isn't one.
+    public int peek() {
+        IntStack bucket = bestBucket();
+        return bucket == null ? EMPTY : bucket.peek();
+    }
+
+    // Advances the f and g cursors to the first non-empty bucket and returns it.
+    private IntStack bestBucket() {
+        if (size == 0) {
+            return null;
+        }
+
+        while (layers.get(minf).size == 0) {
+            minf++;
+        }
+
+        Layer layer = layers.get(minf);
+        while (layer.buckets.get(layer.maxg).size == 0) {
+            layer.maxg--;
+        }
+
+        return layer.buckets.get(layer.maxg);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
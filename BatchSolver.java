@@ -0,0 +1,197 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Solves many puzzles without any prompts. Puzzles are read one per line, each line holding every tile of the board
+// in row major order separated by spaces (blank lines and lines starting with # are skipped). They are handed to a
+// pool of worker threads, and a result line is printed for each puzzle as soon as it is solved, so results come out
+// in the order puzzles finish rather than the order they were read. Reading stops whenever every worker is busy and
+// the queue is full, so a huge input never piles up in memory.
+//
+// Every puzzle in a batch shares the goal and heuristic, so the heuristic tables are built once and shared by every
+// search's SearchContext. Any of the single threaded searches can be used.
+public class BatchSolver {
+
+    private static final int DEFAULT_QUEUE_PER_WORKER = 4;
+
+    private final Driver.Decisions searchDecision;
+    private final Heuristic heuristic;
+    private final double weight;
+    private final double weightDecrease;
+    private final int workers;
+    private final ExecutorService pool;
+    private final Semaphore slots;
+
+    private int submitted;
+
+    // The weight is only used by Anytime WA* and ARA*, and the weight decrease only by ARA*.
+    public BatchSolver(Driver.Decisions searchDecision, Heuristic heuristic, double weight, double weightDecrease,
+                       int workers, int queueSize) {
+        if (searchDecision == null || searchDecision == Driver.Decisions.PARALLEL_IDA_STAR ||
+                searchDecision == Driver.Decisions.HDA_STAR) {
+            throw new IllegalArgumentException("Batch mode only supports the single threaded searches");
+        }
+
+        this.searchDecision = searchDecision;
+        this.heuristic = heuristic;
+        this.weight = weight;
+        this.weightDecrease = weightDecrease;
+        this.workers = workers;
+        pool = Executors.newFixedThreadPool(workers);
+        slots = new Semaphore(workers + queueSize);
+        submitted = 0;
+    }
+
+    // Reads puzzles until the reader is exhausted, waits for all of them to be solved, and returns how many there were.
+    // The pool is shut down even if reading fails, since its threads would otherwise keep the JVM running.
+    public int solveAll(BufferedReader reader) throws IOException, InterruptedException {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                int id = ++submitted;
+                String puzzleLine = line;
+
+                slots.acquire();
+                pool.execute(() -> {
+                    try {
+                        solve(id, puzzleLine);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+
+        return submitted;
+    }
+
+    // Parses and solves one puzzle and prints its result line: id, solution length, nodes expanded, seconds, and the
+    // moves of the empty space (U, D, L, R), separated by tabs. A line that can't be parsed or solved prints the id,
+    // ERROR, and the reason instead.
+    private void solve(int id, String line) {
+        try {
+            Puzzle puzzle = parse(line);
+            long startTime = System.nanoTime();
+
+            Search search = createSearch(puzzle);
+            Node solution = search.search();
+
+            double seconds = (System.nanoTime() - startTime) / 1e9;
+
+            System.out.println(id + "\t" + search.lengthSolution(solution) + "\t" + search.getNumExpanded() + "\t" +
+                    String.format("%.3f", seconds) + "\t" + moves(solution, puzzle.getDimensions()));
+        } catch (RuntimeException e) {
+            System.out.println(id + "\tERROR\t" + e.getMessage());
+        }
+    }
+
+    private Search createSearch(Puzzle start) {
+        SearchContext context = new SearchContext(heuristic, weight);
+
+        switch (searchDecision) {
+            case A_STAR:
+                return new AStarSearch(context, start, AStarSearch.BUCKET_OPEN_LIST);
+            case ANYTIME_WA_STAR:
+                return new AnytimeWAStarSearch(context, start);
+            case ARA_STAR:
+                return new ARAStarSearch(context, start, weightDecrease);
+            case IDA_STAR:
+                return new IDAStarSearch(context, start);
+            case BIDIRECTIONAL:
+                return new BidirectionalSearch(context, start);
+            case EXTERNAL_A_STAR:
+                return new ExternalAStarSearch(context, start, null);
+            case FRINGE:
+                return new FringeSearch(context, start);
+            case DISTANCE_TABLE:
+                return new DistanceTableSearch(context, start);
+            default:
+                throw new IllegalArgumentException("Unknown search decision: " + searchDecision);
+        }
+    }
+
+    // Turns a solution into the directions the empty space moved in.
+    private static String moves(Node solution, int dimensions) {
+        StringBuilder sb = new StringBuilder();
+
+        for (Node node = solution; node.getParent() != null; node = node.getParent()) {
+            int step = node.getEmptySpace() - node.getParent().getEmptySpace();
+
+            if (step == -dimensions) {
+                sb.append('U');
+            } else if (step == dimensions) {
+                sb.append('D');
+            } else if (step == -1) {
+                sb.append('L');
+            } else {
+                sb.append('R');
+            }
+        }
+
+        return sb.reverse().toString();
+    }
+
+    // Parses a line holding every tile of a square board in row major order.
+    static Puzzle parse(String line) {
+        String[] tiles = line.split("\\s+");
+        int dimensions = (int)Math.round(Math.sqrt(tiles.length));
+
+        if (dimensions * dimensions != tiles.length) {
+            throw new IllegalArgumentException("Not Square Matrix: " + line);
+        }
+
+        int[][] grid = new int[dimensions][dimensions];
+        for (int i = 0; i < tiles.length; i++) {
+            grid[i / dimensions][i % dimensions] = Integer.parseInt(tiles[i]);
+        }
+
+        return new Puzzle(grid);
+    }
+
+    // Arguments are the puzzle file (or - for standard input), the goal file, the search and the heuristic (numbered
+    // as in the Driver's menus), and optionally the number of workers, how many puzzles may wait for a worker, the
+    // weight, and the weight decrease. Results go to standard output and a summary to standard error.
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 4) {
+            System.err.println("Usage: java BatchSolver <puzzle file | -> <goal file> <search> <heuristic> " +
+                    "[workers] [queue size] [weight] [weight decrease]");
+            return;
+        }
+
+        Driver.Decisions searchDecision = Driver.Decisions.fromInteger(Integer.parseInt(args[2]));
+        int heuristicType = Integer.parseInt(args[3]);
+        int workers = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        int queueSize = args.length > 5 ? Integer.parseInt(args[5]) : workers * DEFAULT_QUEUE_PER_WORKER;
+        double weight = args.length > 6 ? Double.parseDouble(args[6]) : 1;
+        double weightDecrease = args.length > 7 ? Double.parseDouble(args[7]) : 0;
+
+        Heuristic heuristic = new Heuristic(new Puzzle(Paths.get(args[1])), heuristicType);
+        BatchSolver solver = new BatchSolver(searchDecision, heuristic, weight, weightDecrease, workers, queueSize);
+
+        long startTime = System.nanoTime();
+        int solved;
+        try (BufferedReader reader = args[0].equals("-") ?
+                new BufferedReader(new InputStreamReader(System.in)) : Files.newBufferedReader(Paths.get(args[0]))) {
+            solved = solver.solveAll(reader);
+        }
+
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        System.err.println(String.format("Solved %d puzzles in %.3f seconds (%.1f puzzles/second) with %d workers",
+                solved, seconds, solved / seconds, solver.workers));
+    }
+}
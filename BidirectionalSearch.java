@@ -0,0 +1,244 @@
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+
+// Implements the MM bidirectional heuristic search (Holte, Felner, Sharon, and Sturtevant, "Bidirectional Search That
+// Is Guaranteed to Meet in the Middle"). One search runs forward from the start toward the goal, and another runs
+// backward from the goal toward the start with its heuristic computed toward the start. Both order their open lists
+// by max(f, 2g), which keeps either direction from going past the midpoint of an optimal path, and the direction with
+// the lower priority is expanded next. Every time a board is reached that the other direction has also reached, the
+// two paths are joined and the shortest such path is remembered. The search stops once that path can't be beaten:
+// when it is no longer than the lowest priority, the lowest f value in either open list, or the lowest g values of
+// both open lists added together plus one move.
+//
+// Since every move can be undone, the backward search uses the same moves as the forward one. The pattern database
+// heuristic can't be used, because its tables are built for a single goal and the backward search would need new ones
+// for every start.
+public class BidirectionalSearch extends Search {
+
+    private final Frontier forward;
+    private final Frontier backward;
+    private final Node root;
+
+    // The best path found so far joins these two nodes, which are for the same board.
+    private int bestLength;
+    private Node meetForward;
+    private Node meetBackward;
+
+    // Bidirectional search requires files containing the 15 puzzle to be solved, what the solved state looks like,
+    // and what heuristic to use.
+    public BidirectionalSearch(Path fileName, Path goal, int heuristicType) {
+        this(new SearchContext(new Puzzle(goal), heuristicType), new Puzzle(fileName));
+    }
+
+    // Solves the puzzle for the goal and heuristic in the context. The backward search gets a context of its own
+    // whose goal is the start.
+    public BidirectionalSearch(SearchContext context, Puzzle start) {
+        super(context);
+        requirePackedBoards(context);
+
+        int heuristicType = context.getHeuristic().getType();
+        if (heuristicType == Node.PATTERN_DATABASE_HEURISTIC) {
+            throw new IllegalArgumentException("The pattern database can't be used by the bidirectional search");
+        }
+
+        SearchContext backwardContext = new SearchContext(new Heuristic(start, heuristicType), 1);
+        Puzzle goal = new Puzzle(context.getGoal(), context.getDimensions());
+
+        root = new Node(start, context);
+        forward = new Frontier();
+        forward.add(root);
+        backward = new Frontier();
+        backward.add(new Node(goal, backwardContext));
+
+        bestLength = Integer.MAX_VALUE;
+    }
+
+    // Expands the direction with the lowest priority until the best path joining the two directions is optimal.
+    @Override
+    public Node search() {
+        long startTime = startClock();
+
+        if (root.isGoal()) {
+            setRunTime(startTime, System.nanoTime());
+            return root;
+        }
+
+        while (!terminate()) {
+            checkCancelled();
+
+            int priority = Math.min(forward.minPriority(), backward.minPriority());
+            int lowerBound = Math.max(priority, Math.max(forward.minf(), backward.minf()));
+            lowerBound = Math.max(lowerBound, forward.ming() + backward.ming() + 1);
+
+            if (bestLength <= lowerBound) {
+                break;
+            }
+
+            setBound(priority);
+
+            if (forward.minPriority() <= backward.minPriority()) {
+                expandBest(forward, backward);
+            } else {
+                expandBest(backward, forward);
+            }
+
+            setMaxOpenClosed(forward.open.size() + forward.closed.size() + backward.open.size() +
+                    backward.closed.size());
+        }
+
+        if (meetForward == null) {
+            throw new RuntimeException("ERROR: No solution found");
+        }
+
+        Node solution = join(meetForward, meetBackward);
+
+        setRunTime(startTime, System.nanoTime());
+        return solution;
+    }
+
+    // Expands the best node of one direction. Successors are only kept if they are the cheapest way to their board so
+    // far, and each one the other direction has reached is checked for a shorter path.
+    private void expandBest(Frontier frontier, Frontier opposite) {
+        Node node = frontier.poll();
+        frontier.closed.put(node);
+
+        incrementSizeClosed();
+
+        for (Node successor : expand(node)) {
+            long phaseStart = getPhaseTimer().start();
+
+            Node existing = frontier.best(successor);
+            if (existing == null || successor.getgValue() < existing.getgValue()) {
+                frontier.add(successor);
+                incrementSizeOpen();
+
+                Node other = opposite.best(successor);
+                if (other != null && successor.getgValue() + other.getgValue() < bestLength) {
+                    bestLength = successor.getgValue() + other.getgValue();
+                    meetForward = frontier == forward ? successor : other;
+                    meetBackward = frontier == forward ? other : successor;
+                }
+            }
+
+            getPhaseTimer().stop(PhaseTimer.DUPLICATE_DETECTION, phaseStart);
+        }
+    }
+
+    // Follows the backward path from the meeting point to the goal, extending the forward path one move at a time so
+    // the solution is a single chain of forward Nodes.
+    private Node join(Node forwardNode, Node backwardNode) {
+        Node node = forwardNode;
+        for (Node back = backwardNode; back.getParent() != null; back = back.getParent()) {
+            node = node.getSuccessor(back.getParent().getEmptySpace());
+        }
+
+        return node;
+    }
+
+    // The search has nothing left to do when either direction runs out of nodes.
+    @Override
+    protected boolean terminate() {
+        return forward.open.isEmpty() || backward.open.isEmpty();
+    }
+
+    // Not used, successors are handled by expandBest() since it needs to know which direction they belong to.
+    @Override
+    protected void processSuccessor(Node node) {
+    }
+
+    // Open and closed for one direction. Open is ordered by priority, then by f. Besides the open list, it counts how
+    // many open nodes have each f and g value so the lowest of each is always known.
+    private static class Frontier {
+
+        private final IndexedHeapOpenList open;
+        private final NodeTable closed;
+
+        private int[] fCounts;
+        private int[] gCounts;
+        private int minf;
+        private int ming;
+
+        private Frontier() {
+            open = new IndexedHeapOpenList(Comparator.comparingInt(Frontier::priority)
+                    .thenComparingInt(Node::getfValue));
+            closed = new NodeTable();
+            fCounts = new int[64];
+            gCounts = new int[64];
+            minf = 0;
+            ming = 0;
+        }
+
+        private static int priority(Node node) {
+            return Math.max(node.getfValue(), 2 * node.getgValue());
+        }
+
+        // Adds the node to open, replacing any node for the same board that was in open. A node for the board in
+        // closed is left there until the new node is expanded and replaces it.
+        private void add(Node node) {
+            Node replaced = open.get(node);
+            if (replaced != null) {
+                count(replaced, -1);
+            }
+
+            open.add(node);
+            count(node, 1);
+        }
+
+        private Node poll() {
+            Node node = open.poll();
+            count(node, -1);
+            return node;
+        }
+
+        // Returns the node with the lowest g value this direction has reached the board with, or null if it hasn't
+        // reached the board.
+        private Node best(Node node) {
+            Node inOpen = open.get(node);
+            Node inClosed = closed.get(node.getBoard());
+
+            if (inOpen == null) {
+                return inClosed;
+            }
+
+            return inClosed == null || inOpen.getgValue() < inClosed.getgValue() ? inOpen : inClosed;
+        }
+
+        private int minPriority() {
+            return priority(open.peek());
+        }
+
+        private int minf() {
+            while (fCounts[minf] == 0) {
+                minf++;
+            }
+            return minf;
+        }
+
+        private int ming() {
+            while (gCounts[ming] == 0) {
+                ming++;
+            }
+            return ming;
+        }
+
+        private void count(Node node, int change) {
+            int f = node.getfValue();
+            int g = node.getgValue();
+
+            if (Math.max(f, g) >= fCounts.length) {
+                int length = Math.max(f, g) * 2;
+                fCounts = Arrays.copyOf(fCounts, length);
+                gCounts = Arrays.copyOf(gCounts, length);
+            }
+
+            fCounts[f] += change;
+            gCounts[g] += change;
+
+            if (change > 0) {
+                minf = Math.min(minf, f);
+                ming = Math.min(ming, g);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+// An open list for searches ordered by f value. Since f values are small integers, nodes are kept in an array of
+// buckets indexed by f and then by g, which makes add() and poll() constant time instead of logarithmic. Among nodes
+// with the lowest f value the one with the highest g value is polled first. Deeper nodes are closer to a goal, so
+// this cuts down on the nodes expanded in the last f layer before the solution is found.
+public class BucketOpenList implements OpenList {
+
+    // All the nodes with one f value, bucketed by g value. Since the heuristic is never negative, g is at most f.
+    private static class Layer {
+        private final List<ArrayDeque<Node>> buckets = new ArrayList<>();
+        private int size = 0;
+        private int maxg = 0;
+    }
+
+    private final List<Layer> layers;
+    private int minf;
+    private int size;
+
+    public BucketOpenList() {
+        layers = new ArrayList<>();
+        minf = 0;
+        size = 0;
+    }
+
+    @Override
+    public void add(Node node) {
+        int f = node.getfValue();
+        int g = node.getgValue();
+
+        while (layers.size() <= f) {
+            layers.add(new Layer());
+        }
+
+        Layer layer = layers.get(f);
+        while (layer.buckets.size() <= g) {
+            layer.buckets.add(new ArrayDeque<>());
+        }
+
+        layer.buckets.get(g).push(node);
+        layer.size++;
+        layer.maxg = Math.max(layer.maxg, g);
+
+        if (size == 0 || f < minf) {
+            minf = f;
+        }
+
+        size++;
+    }
+
+    @Override
+    public Node poll() {
+        ArrayDeque<Node> bucket = bestBucket();
+        if (bucket == null) {
+            return null;
+        }
+
+        layers.get(minf).size--;
+        size--;
+
+        return bucket.pop();
+    }
+
+    @Override
+    public Node peek() {
+        ArrayDeque<Node> bucket = bestBucket();
+        return bucket == null ? null : bucket.peek();
+    }
+
+    // Advances the f and g cursors to the first non-empty bucket and returns it.
+    private ArrayDeque<Node> bestBucket() {
+        if (size == 0) {
+            return null;
+        }
+
+        while (layers.get(minf).size == 0) {
+            minf++;
+        }
+
+        Layer layer = layers.get(minf);
+        while (layer.buckets.get(layer.maxg).isEmpty()) {
+            layer.maxg--;
+        }
+
+        return layer.buckets.get(layer.maxg);
+    }
+
+    // Nodes are only bucketed by their values, so this has to scan every bucket.
+    @Override
+    public boolean contains(Node node) {
+        for (Node cur : this) {
+            if (cur.equals(node)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Nodes are only bucketed by their values, so this has to scan every bucket.
+    @Override
+    public Node get(Node node) {
+        for (Node cur : this) {
+            if (cur.equals(node)) {
+                return cur;
+            }
+        }
+
+        return null;
+    }
+
+    // Nodes are only bucketed by their values, so this has to scan every bucket.
+    @Override
+    public boolean remove(Node node) {
+        for (Layer layer : layers) {
+            for (ArrayDeque<Node> bucket : layer.buckets) {
+                if (bucket.remove(node)) {
+                    layer.size--;
+                    size--;
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return layers.stream()
+                .flatMap(layer -> layer.buckets.stream())
+                .flatMap(ArrayDeque::stream)
+                .iterator();
+    }
+}
@@ -0,0 +1,10 @@
+// Thrown out of search() when an anytime search runs out of its budget before it finds any solution. Unlike a plain
+// "no solution found" error, the puzzle may well be solvable with a larger budget.
+public class BudgetExhaustedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BudgetExhaustedException() {
+        super("ERROR: No solution found within the budget");
+    }
+}
@@ -0,0 +1,160 @@
+import java.util.function.Supplier;
+
+// Puts a SolutionCache in front of another search. If the cache already holds a solution for the start board, the
+// solution's Nodes are rebuilt from the cached moves without searching at all. Otherwise the search is created, run,
+// and its solution added to the cache, unless the search's budget ran out before it finished. The statistics are
+// those of the search that ran, or all 0 on a cache hit. The search shares this search's context, so subscribers to
+// the incumbent publisher see its incumbents.
+public class CachedSearch extends Search {
+
+    private final SolutionCache cache;
+    private final Driver.Decisions searchDecision;
+    private final Puzzle start;
+    private final Supplier<Search> factory;
+
+    private volatile Search search;
+    private boolean cacheHit;
+    private double progressInterval;
+    private double timeBudget;
+    private long expansionBudget;
+
+    // The factory creates the search to run on a cache miss. It must solve the start for the context's goal.
+    public CachedSearch(SolutionCache cache, Driver.Decisions searchDecision, SearchContext context, Puzzle start,
+                        Supplier<Search> factory) {
+        super(context);
+
+        this.cache = cache;
+        this.searchDecision = searchDecision;
+        this.start = start;
+        this.factory = factory;
+        search = null;
+        cacheHit = false;
+        progressInterval = 0;
+        timeBudget = 0;
+        expansionBudget = 0;
+    }
+
+    @Override
+    public Node search() {
+        long startTime = startClock();
+
+        int[] moves = cache.get(start.pack(), getContext().getGoal(), searchDecision);
+        if (moves != null) {
+            Node node = new Node(start, getContext());
+            for (int move : moves) {
+                node = node.getSuccessor(move);
+            }
+
+            cacheHit = true;
+            setRunTime(startTime, System.nanoTime());
+            closeIncumbents(null);
+            return node;
+        }
+
+        search = factory.get();
+        search.setProgressInterval(progressInterval);
+        search.setBudget(timeBudget, expansionBudget);
+        if (isCancelled()) {
+            search.cancel();
+        }
+
+        Node solution;
+        try {
+            solution = search.search();
+        } catch (RuntimeException e) {
+            closeIncumbents(e);
+            throw e;
+        }
+
+        // Only the anytime searches close the publisher themselves.
+        closeIncumbents(null);
+
+        if (!search.isBudgetExhausted()) {
+            cache.put(searchDecision, solution);
+        }
+
+        return solution;
+    }
+
+    // Returns whether the last call to search() was answered from the cache.
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    @Override
+    public int getSizeOpen() {
+        return search == null ? 0 : search.getSizeOpen();
+    }
+
+    @Override
+    public int getSizeClosed() {
+        return search == null ? 0 : search.getSizeClosed();
+    }
+
+    @Override
+    public int getMaxIncons() {
+        return search == null ? 0 : search.getMaxIncons();
+    }
+
+    @Override
+    public int getMaxOpenClosed() {
+        return search == null ? 0 : search.getMaxOpenClosed();
+    }
+
+    @Override
+    public int getNumMoved() {
+        return search == null ? 0 : search.getNumMoved();
+    }
+
+    @Override
+    public long getNumExpanded() {
+        return search == null ? 0 : search.getNumExpanded();
+    }
+
+    @Override
+    public double getRunTime() {
+        return search == null ? super.getRunTime() : search.getRunTime();
+    }
+
+    @Override
+    public void setProgressInterval(double seconds) {
+        progressInterval = seconds;
+    }
+
+    @Override
+    public void setBudget(double seconds, long expansions) {
+        timeBudget = seconds;
+        expansionBudget = expansions;
+    }
+
+    @Override
+    public boolean isBudgetExhausted() {
+        return search != null && search.isBudgetExhausted();
+    }
+
+    @Override
+    public double getSuboptimalityBound() {
+        return search == null ? super.getSuboptimalityBound() : search.getSuboptimalityBound();
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+
+        Search running = search;
+        if (running != null) {
+            running.cancel();
+        }
+    }
+
+    // Neither of these inherited functions need to be used. It's bad style but necessary for the Driver to be written
+    // elegantly.
+    @Override
+    protected void processSuccessor(Node node) {
+    }
+
+    @Override
+    protected boolean terminate() {
+        return false;
+    }
+}
@@ -0,0 +1,220 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// The exact number of moves to the goal from every board of the 8 puzzle. There are only 9! = 362880 ways to place
+// the tiles, half of which can reach the goal, so one breadth first search backwards from the goal finds them all.
+// Boards are ranked with PermutationRank and the table holds one byte per rank, 0xFF for boards that can't reach the
+// goal. Solving a board is then a walk down the table, moving each time to the neighbor one move closer to the goal,
+// with no search at all.
+//
+// Like the pattern database, the table is saved in a compact file in the working directory (a header followed by the
+// 362880 bytes) which is memory mapped when loaded, and it is rebuilt if the file was built for a different goal.
+public class DistanceTable {
+
+    // Returned by distance() for boards that can't reach the goal.
+    public static final int UNREACHABLE = -1;
+
+    private static final int MAGIC = 0x44495354;
+    private static final int DIMENSIONS = 3;
+    private static final int NUM_TILES = DIMENSIONS * DIMENSIONS;
+    private static final int EMPTY_SPACE = 0;
+    private static final byte UNVISITED = (byte)0xFF;
+    private static final Path DEFAULT_FILE = Paths.get("distances-3x3.tbl");
+
+    // Tables already loaded in this JVM, by goal.
+    private static final Map<Long, DistanceTable> loaded = new HashMap<>();
+
+    private final long goal;
+    private final ByteBuffer table;
+
+    private DistanceTable(long goal, ByteBuffer table) {
+        this.goal = goal;
+        this.table = table;
+    }
+
+    // Returns the table for the goal. It is loaded from the default file if that file was built for the same goal,
+    // otherwise it is built and the file is overwritten.
+    public static synchronized DistanceTable forGoal(long goal) {
+        DistanceTable distances = loaded.get(goal);
+        if (distances != null) {
+            return distances;
+        }
+
+        try {
+            distances = Files.exists(DEFAULT_FILE) ? load(DEFAULT_FILE) : null;
+
+            if (distances == null || distances.goal != goal) {
+                build(goal, DEFAULT_FILE);
+                distances = load(DEFAULT_FILE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load the distance table", e);
+        }
+
+        loaded.put(goal, distances);
+        return distances;
+    }
+
+    // Returns how many moves the board is from the goal, or UNREACHABLE if it can't reach the goal.
+    public int distance(long board) {
+        return distance(board, new int[NUM_TILES], new int[NUM_TILES]);
+    }
+
+    // Same as above, but ranks the board in the caller's scratch arrays, which need room for every tile, so nothing is
+    // allocated.
+    public int distance(long board, int[] permutation, int[] inverse) {
+        int distance = table.get(rank(board, permutation, inverse)) & 0xFF;
+        return distance == (UNVISITED & 0xFF) ? UNREACHABLE : distance;
+    }
+
+    // Returns the positions the empty space moves to on a shortest path from the board to the goal, or null if the
+    // board can't reach the goal.
+    public int[] solve(long board, int[][] moves) {
+        int[] permutation = new int[NUM_TILES];
+        int[] inverse = new int[NUM_TILES];
+
+        int distance = distance(board, permutation, inverse);
+        if (distance == UNREACHABLE) {
+            return null;
+        }
+
+        int[] path = new int[distance];
+        int emptySpace = PackedBoard.getPosition(board, EMPTY_SPACE, NUM_TILES);
+
+        for (int step = 0; step < path.length; step++) {
+            for (int move : moves[emptySpace]) {
+                long successor = PackedBoard.move(board, emptySpace, move);
+
+                if (distance(successor, permutation, inverse) == distance - step - 1) {
+                    path[step] = move;
+                    board = successor;
+                    emptySpace = move;
+                    break;
+                }
+            }
+        }
+
+        return path;
+    }
+
+    public long getGoal() {
+        return goal;
+    }
+
+    // Ranks the board as the permutation of the tiles on its positions, using the scratch arrays.
+    private static int rank(long board, int[] permutation, int[] inverse) {
+        for (int position = 0; position < NUM_TILES; position++) {
+            permutation[position] = PackedBoard.getValue(board, position);
+        }
+
+        return PermutationRank.rank(permutation, inverse);
+    }
+
+    // Finds the distance of every board from the goal and writes them to the file. The file starts with a header
+    // (magic number, dimensions, and goal) followed by one byte per rank.
+    public static void build(long goal, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(DIMENSIONS);
+            out.writeLong(goal);
+            out.write(buildTable(goal));
+        }
+    }
+
+    // A breadth first search from the goal. Every move can be undone, so the distance from the goal to a board is the
+    // distance from the board to the goal. The queue holds ranks, one layer after another.
+    private static byte[] buildTable(long goal) {
+        int[][] moves = new SearchContext(new Puzzle(goal, DIMENSIONS), Node.SIMPLE_HEURISTIC).getMoves();
+
+        byte[] distances = new byte[PermutationRank.count(NUM_TILES)];
+        Arrays.fill(distances, UNVISITED);
+
+        int[] queue = new int[distances.length / 2];
+        int head = 0;
+        int tail = 0;
+
+        int[] permutation = new int[NUM_TILES];
+        int[] scratch = new int[NUM_TILES];
+        int[] inverse = new int[NUM_TILES];
+
+        queue[tail++] = rank(goal, scratch, inverse);
+        distances[queue[0]] = 0;
+
+        while (head < tail) {
+            int state = queue[head++];
+            PermutationRank.unrank(state, permutation);
+
+            int emptySpace = 0;
+            while (permutation[emptySpace] != EMPTY_SPACE) {
+                emptySpace++;
+            }
+
+            for (int move : moves[emptySpace]) {
+                permutation[emptySpace] = permutation[move];
+                permutation[move] = EMPTY_SPACE;
+
+                // Ranking scrambles its input, so the successor is ranked from a copy.
+                System.arraycopy(permutation, 0, scratch, 0, NUM_TILES);
+                int successor = PermutationRank.rank(scratch, inverse);
+                if (distances[successor] == UNVISITED) {
+                    distances[successor] = (byte)(distances[state] + 1);
+                    queue[tail++] = successor;
+                }
+
+                permutation[move] = permutation[emptySpace];
+                permutation[emptySpace] = EMPTY_SPACE;
+            }
+        }
+
+        return distances;
+    }
+
+    // Memory maps a file written by build(). Returns null if the file isn't a distance table.
+    public static DistanceTable load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.remaining() < Integer.BYTES * 2 + Long.BYTES || buffer.getInt() != MAGIC ||
+                    buffer.getInt() != DIMENSIONS) {
+                return null;
+            }
+
+            long goal = buffer.getLong();
+            if (buffer.remaining() != PermutationRank.count(NUM_TILES)) {
+                return null;
+            }
+
+            return new DistanceTable(goal, buffer.slice());
+        }
+    }
+
+    // Builds the table file ahead of time. Arguments are the goal file and the output file.
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java DistanceTable <goal file> <output file>");
+            return;
+        }
+
+        Puzzle goal = new Puzzle(Paths.get(args[0]));
+        if (goal.getDimensions() != DIMENSIONS) {
+            System.out.println("The distance table is only for 3x3 puzzles");
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        build(goal.pack(), Paths.get(args[1]));
+        System.out.println("Built in " + (System.currentTimeMillis() - startTime) / 1000.0 + " seconds");
+    }
+}
@@ -0,0 +1,57 @@
+import java.nio.file.Path;
+
+// Solves 3x3 puzzles without searching by walking down the 8 puzzle's DistanceTable, which holds the exact number of
+// moves to the goal from every board. The table is built the first time it is needed for a goal and loaded from its
+// file after that, so each solve only looks up a few boards per move of the solution, which is always optimal.
+public class DistanceTableSearch extends Search {
+
+    private final Node root;
+
+    // The distance table search requires files containing the 8 puzzle to be solved and what the solved state looks
+    // like. The heuristic isn't used, but every search has one.
+    public DistanceTableSearch(Path fileName, Path goal, int heuristicType) {
+        this(new SearchContext(new Puzzle(goal), heuristicType), new Puzzle(fileName));
+    }
+
+    // Solves the puzzle for the goal in the context, which has to be a 3x3 goal.
+    public DistanceTableSearch(SearchContext context, Puzzle start) {
+        super(context);
+
+        if (context.getDimensions() != 3) {
+            throw new IllegalArgumentException("The distance table is only for 3x3 puzzles");
+        }
+
+        root = new Node(start, context);
+    }
+
+    // Follows the table from the start to the goal. Every board looked up along the way is counted as expanded.
+    @Override
+    public Node search() {
+        long startTime = startClock();
+
+        int[] path = DistanceTable.forGoal(getContext().getGoal()).solve(root.getBoard(), getContext().getMoves());
+        if (path == null) {
+            throw new RuntimeException("ERROR: No solution found");
+        }
+
+        Node node = root;
+        for (int move : path) {
+            checkCancelled();
+            incrementSizeClosed();
+            node = node.getSuccessor(move);
+        }
+
+        setRunTime(startTime, System.nanoTime());
+        return node;
+    }
+
+    // Neither of these inherited functions need to be used, the table is walked by search().
+    @Override
+    protected void processSuccessor(Node node) {
+    }
+
+    @Override
+    protected boolean terminate() {
+        return false;
+    }
+}
@@ -1,7 +1,10 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 // Provides the player with a means to solve 15 puzzles
 public class Driver {
@@ -11,7 +14,8 @@ public class Driver {
 
     // Enum representing which search algorithm the player wants to use
     public enum Decisions {
-        A_STAR(0), ANYTIME_WA_STAR(1), ARA_STAR(2), IDA_STAR(3);
+        A_STAR(0), ANYTIME_WA_STAR(1), ARA_STAR(2), IDA_STAR(3), PARALLEL_IDA_STAR(4), HDA_STAR(5),
+        BIDIRECTIONAL(6), EXTERNAL_A_STAR(7), FRINGE(8), DISTANCE_TABLE(9);
 
         private int value;
 
@@ -29,6 +33,18 @@ public class Driver {
                     return ARA_STAR;
                 case 3:
                     return IDA_STAR;
+                case 4:
+                    return PARALLEL_IDA_STAR;
+                case 5:
+                    return HDA_STAR;
+                case 6:
+                    return BIDIRECTIONAL;
+                case 7:
+                    return EXTERNAL_A_STAR;
+                case 8:
+                    return FRINGE;
+                case 9:
+                    return DISTANCE_TABLE;
             }
             return null;
         }
@@ -47,13 +63,85 @@ public class Driver {
 
     private static Scanner console = new Scanner(System.in);
 
+    // Set from the command line. How often a search prints a progress line (0 for never), and whether the time spent
+    // in each phase of the search is measured and printed with the statistics.
+    private static double progressInterval = 0;
+    private static boolean phaseTimes = false;
+
+    // Set from the command line. How many seconds and how many expanded nodes Anytime WA* and ARA* may use before they
+    // return the best solution they have, 0 for no limit.
+    private static double budgetSeconds = 0;
+    private static long budgetExpansions = 0;
+
+    // Set from the command line. The directory External A* keeps its files in, or null for the system's temporary
+    // directory.
+    private static Path externalDirectory = null;
+
+    // Set from the command line. How many bytes IDA*'s transposition table may take, 0 for no table.
+    private static long transpositionBytes = 0;
+
+    // Set from the command line. Whether the searches keep their closed lists off the heap.
+    private static boolean offHeapTables = false;
+
+    // Solutions found so far, or null unless caching was turned on with --cache-size or --cache-file.
+    private static SolutionCache cache;
+
     // While the player still wants to solve 15 puzzles, the program will ask for the filenames of the 15 puzzle to be
     // solved, what the goal configuration should be, which algorithm to use, and which heuristic to use. If the player
     // decides to use AWA* or ARA* then the player will be asked what weight to use. If the player decides to use ARA*
     // then the player will be asked what weight decrease value to use. A search for the solution to the inputted 15
     // puzzle will then commence and the solution plus all the relevant statistics will be printed. Finally, the player
-    // will be asked whether they want to play again.
-    public static void main(String args[]) {
+    // will be asked whether they want to play again. Running with --batch followed by BatchSolver's arguments solves a
+    // whole file of puzzles without any prompts instead. Otherwise --progress followed by a number of seconds prints a
+    // progress line that often while searching, and --phase-times prints how long was spent in each phase. Solutions
+    // are only cached when asked for: --cache-size turns the cache on and sets how many are kept, while --cache-file
+    // keeps them in a file between runs (with the default size unless --cache-size is also given). --budget followed
+    // by a number of seconds and --max-expansions followed by a number of nodes make Anytime WA* and ARA* stop early
+    // with the best solution they have, printing each better one as it's found.
+    // --external-dir followed by a directory makes External A* keep its files there. --transposition-table followed
+    // by a number of megabytes gives IDA* a transposition table that size. --off-heap-tables keeps the closed lists of
+    // the searches outside the Java heap.
+    public static void main(String args[]) throws Exception {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchSolver.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // -1 until --cache-size is given. The cache is off by default, so a repeated puzzle is searched again and its
+        // statistics are those of a real search.
+        int cacheSize = -1;
+        Path cacheFile = null;
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--progress") && i + 1 < args.length) {
+                progressInterval = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--phase-times")) {
+                phaseTimes = true;
+            } else if (args[i].equals("--cache-size") && i + 1 < args.length) {
+                cacheSize = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--cache-file") && i + 1 < args.length) {
+                cacheFile = Paths.get(args[++i]);
+            } else if (args[i].equals("--budget") && i + 1 < args.length) {
+                budgetSeconds = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--max-expansions") && i + 1 < args.length) {
+                budgetExpansions = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--external-dir") && i + 1 < args.length) {
+                externalDirectory = Paths.get(args[++i]);
+            } else if (args[i].equals("--off-heap-tables")) {
+                offHeapTables = true;
+            } else if (args[i].equals("--transposition-table") && i + 1 < args.length) {
+                transpositionBytes = (long)(Double.parseDouble(args[++i]) * (1 << 20));
+            }
+        }
+
+        if (cacheSize < 0) {
+            cacheSize = cacheFile == null ? 0 : SolutionCache.DEFAULT_CAPACITY;
+        }
+
+        if (cacheSize > 0) {
+            cache = cacheFile == null ? new SolutionCache(cacheSize) : new SolutionCache(cacheSize, cacheFile);
+        }
+
         System.out.println("----------Welcome to the 15 puzzle solver!----------");
 
         boolean running = true;
@@ -64,11 +152,47 @@ public class Driver {
             System.out.println("Enter the name of the file with the goal configuration: ");
             Path goalPath = getPath();
 
+            // Boards with more than 16 tiles can only be solved by the searches that don't keep tables of boards.
+            Puzzle goal = new Puzzle(goalPath);
+            boolean wide = goal.getDimensions() * goal.getDimensions() > PackedBoard.MAX_TILES;
+
             decisionText();
             Decisions searchDecision = chooseDecision();
+            while (wide && !searchDecision.equals(Decisions.IDA_STAR) &&
+                    !searchDecision.equals(Decisions.PARALLEL_IDA_STAR) ||
+                    searchDecision.equals(Decisions.DISTANCE_TABLE) && goal.getDimensions() != 3) {
+                if (wide) {
+                    System.out.println("ERROR: Only IDA* and parallel IDA* can solve puzzles larger than 4x4.");
+                } else {
+                    System.out.println("ERROR: The distance table can only solve 3x3 puzzles.");
+                }
+                decisionText();
+                searchDecision = chooseDecision();
+            }
 
-            heuristicText();
-            int heuristicType = chooseHeuristic();
+            // The distance table doesn't search, so it has no use for a heuristic.
+            int heuristicType = Node.SIMPLE_HEURISTIC;
+            if (!searchDecision.equals(Decisions.DISTANCE_TABLE)) {
+                heuristicText();
+                heuristicType = chooseHeuristic();
+            }
+            while (searchDecision.equals(Decisions.BIDIRECTIONAL) &&
+                    heuristicType == Node.PATTERN_DATABASE_HEURISTIC) {
+                System.out.println("ERROR: The bidirectional search can't use the pattern database.");
+                heuristicText();
+                heuristicType = chooseHeuristic();
+            }
+            while (wide && heuristicType == Node.PATTERN_DATABASE_HEURISTIC) {
+                System.out.println("ERROR: The pattern database can't be used for puzzles larger than 4x4.");
+                heuristicText();
+                heuristicType = chooseHeuristic();
+            }
+
+            int openListType = AStarSearch.HEAP_OPEN_LIST;
+            if (searchDecision.equals(Decisions.A_STAR)) {
+                openListText();
+                openListType = chooseOpenList();
+            }
 
             double weight = 0;
             if (searchDecision.equals(Decisions.ANYTIME_WA_STAR) || searchDecision.equals(Decisions.ARA_STAR)) {
@@ -82,11 +206,41 @@ public class Driver {
                 weightDecrease = validDouble();
             }
 
-            Search search = createSearch(puzzlePath, goalPath, searchDecision, heuristicType, weight, weightDecrease);
-            Node solution = search.search();
-            printStats(searchDecision, search, solution);
+            int threads = 1;
+            if (searchDecision.equals(Decisions.PARALLEL_IDA_STAR) || searchDecision.equals(Decisions.HDA_STAR)) {
+                threadsText();
+                threads = chooseThreads();
+            }
 
-            Search.clear();
+            Search search = createSearch(puzzlePath, goalPath, searchDecision, heuristicType, openListType,
+                    weight, weightDecrease, threads);
+            search.setProgressInterval(progressInterval);
+            search.getPhaseTimer().setEnabled(phaseTimes);
+            search.setBudget(budgetSeconds, budgetExpansions);
+
+            IncumbentPrinter printer = null;
+            if ((budgetSeconds > 0 || budgetExpansions > 0) && (searchDecision.equals(Decisions.ANYTIME_WA_STAR) ||
+                    searchDecision.equals(Decisions.ARA_STAR))) {
+                printer = new IncumbentPrinter();
+                search.getIncumbentPublisher().subscribe(printer);
+            }
+
+            Node solution = null;
+            try {
+                solution = search.search();
+            } catch (BudgetExhaustedException e) {
+                System.out.println("No incumbent was found within the budget.");
+            }
+            if (printer != null) {
+                printer.done.join();
+            }
+            if (solution != null) {
+                printStats(searchDecision, search, solution);
+            }
+
+            if (cache != null) {
+                cache.save();
+            }
 
             running = runAgain();
             console.nextLine();
@@ -126,12 +280,20 @@ public class Driver {
         System.out.println("1 | Anytime WA* Search");
         System.out.println("2 | ARA* Search");
         System.out.println("3 | IDA* Search");
+        System.out.println("4 | Parallel IDA* Search");
+        System.out.println("5 | Hash Distributed A* Search");
+        System.out.println("6 | Bidirectional (MM) Search");
+        System.out.println("7 | External Memory A* Search");
+        System.out.println("8 | Fringe Search");
+        System.out.println("9 | 8 Puzzle Distance Table (3x3 only, no search)");
     }
 
     // Returns a valid heuristic
     private static int chooseHeuristic() {
         int heuristicType = validInt();
-        while (heuristicType != Node.SIMPLE_HEURISTIC && heuristicType != Node.MANHATTAN_HEURISTIC) {
+        while (heuristicType != Node.SIMPLE_HEURISTIC && heuristicType != Node.MANHATTAN_HEURISTIC &&
+                heuristicType != Node.PATTERN_DATABASE_HEURISTIC &&
+                heuristicType != Node.LINEAR_CONFLICT_HEURISTIC) {
             System.out.println("ERROR: Enter a number that appears in the left column.");
             heuristicText();
             heuristicType = validInt();
@@ -144,6 +306,28 @@ public class Driver {
         System.out.println("Select the heuristic from the following: ");
         System.out.println("0 | Simple Heuristic");
         System.out.println("1 | Manhattan Heuristic");
+        System.out.println("2 | Pattern Database Heuristic");
+        System.out.println("3 | Linear Conflict Heuristic");
+    }
+
+    // Returns a valid open list type
+    private static int chooseOpenList() {
+        int openListType = validInt();
+        while (openListType != AStarSearch.HEAP_OPEN_LIST && openListType != AStarSearch.BUCKET_OPEN_LIST &&
+                openListType != AStarSearch.ARENA_OPEN_LIST) {
+            System.out.println("ERROR: Enter a number that appears in the left column.");
+            openListText();
+            openListType = validInt();
+        }
+
+        return openListType;
+    }
+
+    private static void openListText() {
+        System.out.println("Select the open list from the following: ");
+        System.out.println("0 | Binary Heap");
+        System.out.println("1 | Buckets (ties broken on depth)");
+        System.out.println("2 | Buckets over a node arena (same order as 1, far less memory)");
     }
 
     // Returns a valid integer
@@ -167,6 +351,24 @@ public class Driver {
         System.out.println("Enter how much to decrease the weight by now: ");
     }
 
+    private static void threadsText() {
+        System.out.println("Parallel IDA* and HDA* split the search across threads.");
+        System.out.println("Enter how many threads to use (this machine has " +
+                Runtime.getRuntime().availableProcessors() + " cores): ");
+    }
+
+    // Returns a valid number of threads
+    private static int chooseThreads() {
+        int threads = validInt();
+        while (threads < 1) {
+            System.out.println("ERROR: Enter at least 1 thread.");
+            threadsText();
+            threads = validInt();
+        }
+
+        return threads;
+    }
+
     // Returns a valid double
     private static double validDouble() {
         while (!console.hasNextDouble()) {
@@ -178,18 +380,51 @@ public class Driver {
         return console.nextDouble();
     }
 
-    // Creates the search object. Which algorithm is used depends on which algorithm the user selected.
+    // Creates the search object. Which algorithm is used depends on which algorithm the user selected. Unless caching
+    // is off, the search is put behind the solution cache and only created if the cache doesn't have a solution.
     private static Search createSearch(Path puzzlePath, Path goalPath, Decisions searchDecision,
-                                       int heuristicType, double weight, double weightDecrease) {
+                                       int heuristicType, int openListType, double weight,
+                                       double weightDecrease, int threads) {
+        // Only the weighted searches use the weight, the others search with a weight of 1 like they always have.
+        boolean weighted = searchDecision.equals(Decisions.ANYTIME_WA_STAR) ||
+                searchDecision.equals(Decisions.ARA_STAR);
+        SearchContext context = new SearchContext(new Puzzle(goalPath), heuristicType, weighted ? weight : 1);
+        context.setOffHeapTables(offHeapTables);
+        Puzzle start = new Puzzle(puzzlePath);
+
+        // The cache is keyed by packed boards, so boards too wide to pack are never cached. The distance table is
+        // already a complete cache of 3x3 solutions, so its solutions would only push others out.
+        if (cache == null || context.isWide() || searchDecision.equals(Decisions.DISTANCE_TABLE)) {
+            return newSearch(searchDecision, context, start, openListType, weightDecrease, threads);
+        }
+
+        return new CachedSearch(cache, searchDecision, context, start,
+                () -> newSearch(searchDecision, context, start, openListType, weightDecrease, threads));
+    }
+
+    private static Search newSearch(Decisions searchDecision, SearchContext context, Puzzle start, int openListType,
+                                    double weightDecrease, int threads) {
         switch (searchDecision) {
             case A_STAR:
-                return new AStarSearch(puzzlePath, goalPath, heuristicType);
+                return new AStarSearch(context, start, openListType);
             case ANYTIME_WA_STAR:
-                return new AnytimeWAStarSearch(puzzlePath, goalPath, heuristicType, weight);
+                return new AnytimeWAStarSearch(context, start);
             case ARA_STAR:
-                return new ARAStarSearch(puzzlePath, goalPath, heuristicType, weight, weightDecrease);
+                return new ARAStarSearch(context, start, weightDecrease);
             case IDA_STAR:
-                return new IDAStarSearch(puzzlePath, goalPath, heuristicType);
+                return new IDAStarSearch(context, start, transpositionBytes);
+            case PARALLEL_IDA_STAR:
+                return new ParallelIDAStarSearch(context, start, threads);
+            case HDA_STAR:
+                return new HDAStarSearch(context, start, threads);
+            case BIDIRECTIONAL:
+                return new BidirectionalSearch(context, start);
+            case EXTERNAL_A_STAR:
+                return new ExternalAStarSearch(context, start, externalDirectory);
+            case FRINGE:
+                return new FringeSearch(context, start);
+            case DISTANCE_TABLE:
+                return new DistanceTableSearch(context, start);
             default:
                 throw new IllegalArgumentException("Unknown search decision: " + searchDecision);
         }
@@ -200,8 +435,16 @@ public class Driver {
         search.printSolution(solution);
         System.out.println("Solution length: " + search.lengthSolution(solution));
 
+        if (search instanceof CachedSearch && ((CachedSearch)search).isCacheHit()) {
+            System.out.println("Solution found in the cache");
+            System.out.println("Run time of program: " + search.getRunTime());
+            System.out.println();
+            return;
+        }
+
         switch (searchDecision) {
             case A_STAR:
+            case FRINGE:
                 System.out.println("Size of closed list: " + search.getSizeClosed());
                 System.out.println("Size of open list: " + search.getSizeOpen());
                 System.out.println("Max size of open & closed lists: " + search.getMaxOpenClosed());
@@ -219,15 +462,68 @@ public class Driver {
                 System.out.println("Number nodes moved from closed -> open: " + search.getNumMoved());
                 break;
             case IDA_STAR:
+            case PARALLEL_IDA_STAR:
+                System.out.println("Nodes expanded: " + search.getNumExpanded());
+                break;
+            case HDA_STAR:
+                System.out.println("Nodes expanded: " + search.getNumExpanded());
+                System.out.println("Size of open & closed lists: " + search.getMaxOpenClosed());
+                break;
+            case BIDIRECTIONAL:
+                System.out.println("Nodes expanded: " + search.getNumExpanded());
+                System.out.println("Max size of open & closed lists in both directions: " +
+                        search.getMaxOpenClosed());
+                break;
+            case EXTERNAL_A_STAR:
+                System.out.println("Nodes expanded: " + search.getNumExpanded());
+                System.out.println("States written to disk: " + search.getSizeOpen());
+                break;
+            case DISTANCE_TABLE:
+                System.out.println("Moves looked up in the distance table: " + search.getNumExpanded());
                 break;
             default:
                 throw new IllegalArgumentException("Unknown search decision: " + searchDecision);
         }
 
+        if (search.isBudgetExhausted()) {
+            System.out.println("The budget ran out, so the solution is at most " + search.getSuboptimalityBound() +
+                    " times longer than optimal");
+        }
+
         System.out.println("Run time of program: " + search.getRunTime());
+        if (search.getPhaseTimer().isEnabled()) {
+            System.out.println(search.getPhaseTimer());
+        }
         System.out.println();
     }
 
+    // Prints every better solution an anytime search finds as soon as it is found. done completes once the search has
+    // closed its publisher, so the Driver can wait for the last line before printing the statistics.
+    private static class IncumbentPrinter implements Flow.Subscriber<Incumbent> {
+
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(Incumbent incumbent) {
+            System.out.println("Found a solution: " + incumbent);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.complete(null);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+
     // Returns whether the player wants to play again.
     private static boolean runAgain() {
         System.out.println("Do you want to run the program again?");
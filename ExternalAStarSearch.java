@@ -0,0 +1,452 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+// Implements External A* (Edelkamp, Jabbar, and Schroedl, "External A*"), which keeps open and closed on disk so the
+// number of states it can search is limited by disk space instead of by the heap. States are packed boards kept in
+// bucket files, one for each pair of g and h values. The buckets are expanded in order of f value, and among buckets
+// with the same f value in order of g value, so a bucket is only expanded once every bucket that could add states to
+// it has been. Successors are appended to their bucket's file without looking for duplicates. Duplicates are removed
+// in one batch when a bucket is about to be expanded instead: its file is sorted in runs that fit in memory, and the
+// runs are merged, dropping repeated states and every state that was already expanded.
+//
+// A state in a bucket can only have been expanded before at a smaller g with the same h. Every move can be undone,
+// so a state first expanded at depth d has all of its neighbors at depth d - 1 or d + 1 at the latest, and the boards
+// of the sliding tile puzzle alternate between two parities with every move, so a state can't be reached at depths
+// that differ by one. That leaves only the bucket two levels up, which is subtracted during the merge. This relies on
+// the heuristic being consistent, which all of the heuristics are.
+//
+// Expanded buckets stay on disk, sorted. No parents are kept, so once the goal is reached the path is found by working
+// back from the goal, one level at a time, looking each neighbor up in the sorted bucket it would have been in.
+// Everything is written to a new directory, which is deleted when the search finishes.
+public class ExternalAStarSearch extends Search {
+
+    // How many states are sorted in memory at once. This is the only part of the search whose size grows with the
+    // number of states, and it is 32 MB.
+    private static final int RUN_LENGTH = 1 << 22;
+
+    // The size of the buffer of every file being read or written.
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final Node root;
+    private final Path parentDirectory;
+    private final long goal;
+    private final int numTiles;
+
+    private Path directory;
+    private Map<Long, Bucket> buckets;
+    private long[] run;
+
+    // Solves the puzzle with the heuristic and goal in the files, keeping its files in a new directory in the system's
+    // temporary directory.
+    public ExternalAStarSearch(Path fileName, Path goal, int heuristicType) {
+        this(new SearchContext(new Puzzle(goal), heuristicType), new Puzzle(fileName), null);
+    }
+
+    // Solves the puzzle for the goal and heuristic in the context, keeping its files in a new directory inside the
+    // directory, or inside the system's temporary directory if it is null.
+    public ExternalAStarSearch(SearchContext context, Puzzle start, Path directory) {
+        super(context);
+        requirePackedBoards(context);
+
+        root = new Node(start, context);
+        parentDirectory = directory;
+        goal = context.getGoal();
+        numTiles = context.getDimensions() * context.getDimensions();
+    }
+
+    // The files of one bucket. States are appended to the unsorted file until the bucket is expanded, after which the
+    // bucket only has its sorted file of the states that were expanded.
+    private static class Bucket {
+
+        private final int g;
+        private final int h;
+        private LongWriter unsorted;
+        private Path sorted;
+
+        private Bucket(int g, int h) {
+            this.g = g;
+            this.h = h;
+        }
+    }
+
+    // Expands the buckets in order of f, then g, until the goal's bucket is expanded. The goal is only recognized when
+    // its bucket is expanded rather than when it is generated, since only then is every shorter path ruled out.
+    @Override
+    public Node search() {
+        long startTime = startClock();
+
+        try {
+            directory = parentDirectory == null ? Files.createTempDirectory("external-astar") :
+                    Files.createTempDirectory(parentDirectory, "external-astar");
+            buckets = new HashMap<>();
+            run = new long[RUN_LENGTH];
+
+            bucket(0, root.getHeuristic()).unsorted.write(root.getBoard());
+            incrementSizeOpen();
+
+            Bucket goalBucket = null;
+            for (int f = root.getfValue(); goalBucket == null; f++) {
+                if (terminate()) {
+                    throw new RuntimeException("ERROR: No solution found");
+                }
+
+                setBound(f);
+
+                for (int g = 0; g <= f && goalBucket == null; g++) {
+                    Bucket bucket = buckets.get(key(g, f - g));
+                    if (bucket != null && bucket.unsorted != null && expand(bucket)) {
+                        goalBucket = bucket;
+                    }
+                }
+            }
+
+            Node solution = reconstruct(goalBucket.g);
+
+            setRunTime(startTime, System.nanoTime());
+            return solution;
+        } catch (IOException e) {
+            throw new UncheckedIOException("External A* could not use its files", e);
+        } finally {
+            deleteDirectory();
+            run = null;
+        }
+    }
+
+    // Removes the duplicates from the bucket and expands the states left in it in sorted order, appending the
+    // successors to their buckets. Returns whether the goal is in the bucket, in which case expansion stops at the
+    // goal: the states sorted before it have already been expanded, and the ones after it are not.
+    private boolean expand(Bucket bucket) throws IOException {
+        bucket.unsorted.close();
+        Path unsorted = bucket.unsorted.file;
+        bucket.unsorted = null;
+
+        Bucket previous = buckets.get(key(bucket.g - 2, bucket.h));
+        bucket.sorted = file(bucket.g, bucket.h, "sorted");
+        removeDuplicates(unsorted, previous == null ? null : previous.sorted, bucket.sorted);
+        Files.delete(unsorted);
+
+        int[][] moves = getContext().getMoves();
+        Heuristic heuristic = getContext().getHeuristic();
+
+        try (LongReader reader = new LongReader(bucket.sorted)) {
+            while (reader.hasNext()) {
+                long board = reader.next();
+
+                if (board == goal) {
+                    return true;
+                }
+
+                checkCancelled();
+                incrementSizeClosed();
+
+                int emptySpace = PackedBoard.getPosition(board, 0, numTiles);
+                for (int move : moves[emptySpace]) {
+                    int tile = PackedBoard.getValue(board, move);
+                    int h = bucket.h + heuristic.delta(board, tile, move, emptySpace);
+
+                    bucket(bucket.g + 1, h).unsorted.write(PackedBoard.move(board, emptySpace, move));
+                    incrementSizeOpen();
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // Sorts the unsorted file into runs that fit in memory, then merges the runs into the sorted file, leaving out
+    // repeated states and the states in the previous file, which is sorted too.
+    private void removeDuplicates(Path unsorted, Path previous, Path sorted) throws IOException {
+        List<Path> runs = new ArrayList<>();
+
+        try (LongReader reader = new LongReader(unsorted)) {
+            while (reader.hasNext()) {
+                int length = 0;
+                while (length < run.length && reader.hasNext()) {
+                    run[length++] = reader.next();
+                }
+
+                Arrays.sort(run, 0, length);
+
+                Path runFile = sorted.resolveSibling(sorted.getFileName() + ".run" + runs.size());
+                try (LongWriter writer = new LongWriter(runFile)) {
+                    for (int i = 0; i < length; i++) {
+                        if (i == 0 || run[i] != run[i - 1]) {
+                            writer.write(run[i]);
+                        }
+                    }
+                }
+                runs.add(runFile);
+            }
+        }
+
+        List<LongReader> readers = new ArrayList<>();
+        PriorityQueue<LongReader> merge = new PriorityQueue<>(Comparator.comparingLong(LongReader::peek));
+        try (LongWriter writer = new LongWriter(sorted);
+             LongReader expanded = previous == null ? null : new LongReader(previous)) {
+            for (Path runFile : runs) {
+                LongReader reader = new LongReader(runFile);
+                readers.add(reader);
+                if (reader.hasNext()) {
+                    merge.add(reader);
+                }
+            }
+
+            boolean first = true;
+            long last = 0;
+            while (!merge.isEmpty()) {
+                LongReader reader = merge.poll();
+                long board = reader.next();
+                if (reader.hasNext()) {
+                    merge.add(reader);
+                }
+
+                if (!first && board == last) {
+                    continue;
+                }
+                first = false;
+                last = board;
+
+                while (expanded != null && expanded.hasNext() && expanded.peek() < board) {
+                    expanded.next();
+                }
+
+                if (expanded == null || !expanded.hasNext() || expanded.peek() != board) {
+                    writer.write(board);
+                }
+            }
+        } finally {
+            for (LongReader reader : readers) {
+                reader.close();
+            }
+        }
+
+        for (Path runFile : runs) {
+            Files.delete(runFile);
+        }
+    }
+
+    // Works back from the goal at depth length to the root. At every level one of the board's neighbors was expanded
+    // at the level above, and it is found by looking each neighbor up in the sorted bucket for its h value.
+    private Node reconstruct(int length) throws IOException {
+        int[][] moves = getContext().getMoves();
+        Heuristic heuristic = getContext().getHeuristic();
+
+        int[] path = new int[length];
+        long board = goal;
+        int emptySpace = PackedBoard.getPosition(board, 0, numTiles);
+
+        for (int g = length; g > 0; g--) {
+            boolean found = false;
+
+            for (int move : moves[emptySpace]) {
+                long parent = PackedBoard.move(board, emptySpace, move);
+                Bucket bucket = buckets.get(key(g - 1, heuristic.evaluate(parent)));
+
+                if (bucket != null && bucket.sorted != null && contains(bucket.sorted, parent)) {
+                    path[g - 1] = emptySpace;
+                    board = parent;
+                    emptySpace = move;
+                    found = true;
+                    break;
+                }
+            }
+
+            if (!found) {
+                throw new IllegalStateException("No expanded parent at depth " + (g - 1));
+            }
+        }
+
+        Node node = root;
+        for (int move : path) {
+            node = node.getSuccessor(move);
+        }
+
+        return node;
+    }
+
+    // Binary searches the sorted file for the board.
+    private static boolean contains(Path file, long board) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            long low = 0;
+            long high = channel.size() / Long.BYTES - 1;
+
+            while (low <= high) {
+                long middle = (low + high) >>> 1;
+
+                buffer.clear();
+                while (buffer.hasRemaining() && channel.read(buffer, middle * Long.BYTES + buffer.position()) > 0) {
+                    // Keep reading until the whole long is in.
+                }
+                long value = buffer.getLong(0);
+
+                if (value < board) {
+                    low = middle + 1;
+                } else if (value > board) {
+                    high = middle - 1;
+                } else {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // Returns the bucket for the g and h values, creating it and its unsorted file if it doesn't exist yet.
+    private Bucket bucket(int g, int h) throws IOException {
+        Bucket bucket = buckets.get(key(g, h));
+        if (bucket == null) {
+            bucket = new Bucket(g, h);
+            bucket.unsorted = new LongWriter(file(g, h, "unsorted"));
+            buckets.put(key(g, h), bucket);
+        }
+
+        return bucket;
+    }
+
+    private static long key(int g, int h) {
+        return ((long)g << 32) | h;
+    }
+
+    private Path file(int g, int h, String kind) {
+        return directory.resolve("bucket-" + g + "-" + h + "." + kind);
+    }
+
+    private void deleteDirectory() {
+        if (directory == null) {
+            return;
+        }
+
+        if (buckets != null) {
+            for (Bucket bucket : buckets.values()) {
+                if (bucket.unsorted != null) {
+                    try {
+                        bucket.unsorted.close();
+                    } catch (IOException e) {
+                        // The file is deleted below either way.
+                    }
+                }
+            }
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>)files::iterator) {
+                Files.delete(file);
+            }
+            Files.delete(directory);
+        } catch (IOException e) {
+            System.err.println("Could not delete " + directory + ": " + e.getMessage());
+        }
+    }
+
+    // External A* stops when no bucket has states waiting to be expanded, meaning every board reachable from the start
+    // was searched.
+    @Override
+    protected boolean terminate() {
+        for (Bucket bucket : buckets.values()) {
+            if (bucket.unsorted != null) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Not used, successors are written straight to their buckets by expand().
+    @Override
+    protected void processSuccessor(Node node) {
+    }
+
+    // Appends longs to a file through a buffer.
+    private static class LongWriter implements Closeable {
+
+        private final Path file;
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        private LongWriter(Path file) throws IOException {
+            this.file = file;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        }
+
+        private void write(long value) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+
+            buffer.putLong(value);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel.isOpen()) {
+                flush();
+                channel.close();
+            }
+        }
+    }
+
+    // Reads the longs of a file in order through a buffer.
+    private static class LongReader implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        private LongReader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            buffer.flip();
+        }
+
+        private boolean hasNext() throws IOException {
+            if (buffer.remaining() < Long.BYTES) {
+                buffer.compact();
+                while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                    // Fill the buffer as far as the file goes.
+                }
+                buffer.flip();
+            }
+
+            return buffer.remaining() >= Long.BYTES;
+        }
+
+        // Only valid after hasNext() returned true.
+        private long peek() {
+            return buffer.getLong(buffer.position());
+        }
+
+        private long next() {
+            return buffer.getLong();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
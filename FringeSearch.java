@@ -0,0 +1,250 @@
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Implements Fringe Search (Bjornsson, Enzenberger, Holte, and Schaeffer, "Fringe Search: Beating A* at
+// Pathfinding on Game Maps"). Like IDA* it searches everything within an f threshold and raises the threshold to the
+// smallest f value that exceeded it, but instead of searching the tree again from the start each time, it keeps the
+// fringe, the boards at the edge of the search, and picks up from there. The fringe is one doubly linked list that is
+// walked from front to back each iteration. A board within the threshold is expanded in place: its successors are
+// linked in right after it, so they are visited next, and it is unlinked. A board over the threshold is left where it
+// is for the next iteration. Nothing is sorted, so there is none of the priority queue work of A*.
+//
+// Every board ever reached is kept in a cache holding its best g value, its parent, and whether it is in the fringe.
+// A successor is only linked in if it has not been reached with a g value as low before, and if it is already in the
+// fringe it is moved to its new place. The cache and the list are kept in parallel arrays indexed by slot, with a
+// StateTable from boards to slots, so no Nodes are made until the solution is found.
+public class FringeSearch extends Search {
+
+    // Marks the end of the fringe, and a slot with no parent.
+    private static final int NONE = -1;
+
+    // Marks a slot that isn't in the fringe.
+    private static final int NOT_LISTED = -2;
+
+    private final Node root;
+
+    // The cache, indexed by slot.
+    private final StateTable slots;
+    private long[] boards;
+    private int[] gValues;
+    private int[] heuristics;
+    private int[] parents;
+    private int[] emptySpaces;
+    private int size;
+
+    // The fringe, linked through the slots.
+    private int[] previous;
+    private int[] next;
+    private int head;
+    private int fringeSize;
+
+    // Fringe search requires files containing the 15 puzzle to be solved, what the solved state looks like, and what
+    // heuristic to use.
+    public FringeSearch(Path fileName, Path goal, int heuristicType) {
+        this(new SearchContext(new Puzzle(goal), heuristicType), new Puzzle(fileName));
+    }
+
+    // Solves the puzzle for the goal and heuristic in the context.
+    public FringeSearch(SearchContext context, Puzzle start) {
+        super(context);
+        requirePackedBoards(context);
+
+        root = new Node(start, context);
+
+        slots = newClosed();
+        boards = new long[1 << 10];
+        gValues = new int[boards.length];
+        heuristics = new int[boards.length];
+        parents = new int[boards.length];
+        emptySpaces = new int[boards.length];
+        previous = new int[boards.length];
+        next = new int[boards.length];
+        size = 0;
+
+        head = NONE;
+        fringeSize = 0;
+
+        int slot = newSlot(root.getBoard(), root.getHeuristic());
+        update(slot, 0, NONE, root.getEmptySpace());
+        linkAfter(NONE, slot);
+    }
+
+    // Walks the fringe until a goal within the threshold is found. Each walk raises the threshold to the smallest f
+    // value it skipped, so the first goal found is optimal.
+    @Override
+    public Node search() {
+        long startTime = startClock();
+
+        int[][] moves = getContext().getMoves();
+        Heuristic heuristic = getContext().getHeuristic();
+        long goal = getContext().getGoal();
+        PhaseTimer timer = getPhaseTimer();
+
+        int threshold = root.getfValue();
+        while (!terminate()) {
+            setBound(threshold);
+            int min = Integer.MAX_VALUE;
+
+            int slot = head;
+            while (slot != NONE) {
+                int f = gValues[slot] + heuristics[slot];
+                if (f > threshold) {
+                    min = Math.min(min, f);
+                    slot = next[slot];
+                    continue;
+                }
+
+                long board = boards[slot];
+                if (board == goal) {
+                    Node solution = solution(slot);
+
+                    setRunTime(startTime, System.nanoTime());
+                    return solution;
+                }
+
+                checkCancelled();
+                incrementSizeClosed();
+
+                // Successors are linked in right after the board in reverse so they are visited in move order.
+                int emptySpace = emptySpaces[slot];
+                int[] candidates = moves[emptySpace];
+                for (int i = candidates.length - 1; i >= 0; i--) {
+                    int move = candidates[i];
+
+                    long phaseStart = timer.start();
+                    long successor = PackedBoard.move(board, emptySpace, move);
+                    timer.stop(PhaseTimer.EXPANSION, phaseStart);
+
+                    phaseStart = timer.start();
+                    int successorSlot = slots.get(successor);
+                    boolean worse = successorSlot != StateTable.NOT_FOUND &&
+                            gValues[successorSlot] <= gValues[slot] + 1;
+                    timer.stop(PhaseTimer.DUPLICATE_DETECTION, phaseStart);
+                    if (worse) {
+                        continue;
+                    }
+
+                    if (successorSlot == StateTable.NOT_FOUND) {
+                        phaseStart = timer.start();
+                        int h = heuristics[slot] + heuristic.delta(board, PackedBoard.getValue(board, move), move,
+                                emptySpace);
+                        timer.stop(PhaseTimer.HEURISTIC, phaseStart);
+
+                        successorSlot = newSlot(successor, h);
+                    } else if (previous[successorSlot] != NOT_LISTED) {
+                        unlink(successorSlot);
+                    }
+
+                    update(successorSlot, gValues[slot] + 1, slot, move);
+                    linkAfter(slot, successorSlot);
+                    incrementSizeOpen();
+                }
+
+                int following = next[slot];
+                unlink(slot);
+                slot = following;
+
+                setMaxOpenClosed(size);
+            }
+
+            threshold = min;
+        }
+
+        throw new RuntimeException("ERROR: No solution found");
+    }
+
+    // Follows the parents back from the slot to the root, then rebuilds the path as a chain of Nodes.
+    private Node solution(int slot) {
+        int[] path = new int[gValues[slot]];
+        for (int cur = slot; parents[cur] != NONE; cur = parents[cur]) {
+            path[gValues[cur] - 1] = emptySpaces[cur];
+        }
+
+        Node node = root;
+        for (int move : path) {
+            node = node.getSuccessor(move);
+        }
+
+        return node;
+    }
+
+    // Adds the board to the cache, outside the fringe, and returns its slot.
+    private int newSlot(long board, int heuristic) {
+        if (size == boards.length) {
+            int length = size * 2;
+            boards = Arrays.copyOf(boards, length);
+            gValues = Arrays.copyOf(gValues, length);
+            heuristics = Arrays.copyOf(heuristics, length);
+            parents = Arrays.copyOf(parents, length);
+            emptySpaces = Arrays.copyOf(emptySpaces, length);
+            previous = Arrays.copyOf(previous, length);
+            next = Arrays.copyOf(next, length);
+        }
+
+        int slot = size++;
+        boards[slot] = board;
+        heuristics[slot] = heuristic;
+        previous[slot] = NOT_LISTED;
+        next[slot] = NOT_LISTED;
+        slots.put(board, slot);
+
+        return slot;
+    }
+
+    // Records a new best path to the slot's board.
+    private void update(int slot, int gValue, int parent, int emptySpace) {
+        gValues[slot] = gValue;
+        parents[slot] = parent;
+        emptySpaces[slot] = emptySpace;
+    }
+
+    // Links the slot into the fringe right after the other slot, or at the front if the other slot is NONE.
+    private void linkAfter(int after, int slot) {
+        int following = after == NONE ? head : next[after];
+
+        previous[slot] = after;
+        next[slot] = following;
+
+        if (after == NONE) {
+            head = slot;
+        } else {
+            next[after] = slot;
+        }
+
+        if (following != NONE) {
+            previous[following] = slot;
+        }
+
+        fringeSize++;
+    }
+
+    private void unlink(int slot) {
+        int before = previous[slot];
+        int following = next[slot];
+
+        if (before == NONE) {
+            head = following;
+        } else {
+            next[before] = following;
+        }
+
+        if (following != NONE) {
+            previous[following] = before;
+        }
+
+        previous[slot] = NOT_LISTED;
+        next[slot] = NOT_LISTED;
+        fringeSize--;
+    }
+
+    // Fringe search stops when the fringe is empty, meaning every board reachable from the start was searched.
+    @Override
+    protected boolean terminate() {
+        return fringeSize == 0;
+    }
+
+    // Not used, successors are linked into the fringe by search() since they go right after their parent.
+    @Override
+    protected void processSuccessor(Node node) {
+    }
+}
@@ -0,0 +1,210 @@
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Implements Hash Distributed A*, a parallel version of the A* search algorithm. Every board is owned by one worker,
+// picked by hashing the packed board, and only that worker keeps it in its open and closed lists. When a worker
+// generates a successor it doesn't own, it sends the successor to the owner's lock-free inbox. Each worker expands its
+// own best nodes, so the workers never have to lock each other's lists.
+//
+// A goal is only accepted when it is expanded, and the search stops once every worker is out of nodes with an f value
+// below the best solution and no successor is still in transit. With an admissible heuristic that solution is optimal.
+public class HDAStarSearch extends Search {
+
+    private final Node root;
+    private final Worker[] workers;
+
+    private final AtomicReference<Node> best;
+
+    // Successors sent but not yet taken in by their owner, and how many times a worker went from idle to busy. Both
+    // are needed to tell for sure that every worker is idle at the same time.
+    private final AtomicLong inFlight;
+    private final AtomicLong activity;
+    private volatile boolean done;
+
+    // HDA* requires files containing the 15 puzzle to be solved, what the solved state looks like, what heuristic to
+    // use, and how many threads to search with.
+    public HDAStarSearch(Path fileName, Path goal, int heuristicType, int threads) {
+        this(new SearchContext(new Puzzle(goal), heuristicType), new Puzzle(fileName), threads);
+    }
+
+    // Solves the puzzle for the goal and heuristic in the context with the specified number of threads.
+    public HDAStarSearch(SearchContext context, Puzzle start, int threads) {
+        super(context);
+        requirePackedBoards(context);
+
+        root = new Node(start, context);
+
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker();
+        }
+
+        best = new AtomicReference<>();
+        inFlight = new AtomicLong();
+        activity = new AtomicLong();
+        done = false;
+    }
+
+    // Sends the root to its owner and runs every worker on its own thread until the search is over.
+    @Override
+    public Node search() {
+        long startTime = startClock();
+
+        send(root);
+
+        Thread[] threads = new Thread[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            threads[i] = new Thread(workers[i], "hda-star-" + i);
+            threads[i].start();
+        }
+
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            done = true;
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("ERROR: Search interrupted", e);
+        }
+
+        int stored = 0;
+        for (Worker worker : workers) {
+            addNumExpanded(worker.expanded);
+            stored += worker.seen.size();
+        }
+
+        setMaxOpenClosed(stored);
+        checkCancelled();
+
+        long endTime = System.nanoTime();
+        setRunTime(startTime, endTime);
+
+        if (best.get() == null) {
+            throw new RuntimeException("ERROR: No solution found");
+        }
+
+        return best.get();
+    }
+
+    private void send(Node node) {
+        inFlight.incrementAndGet();
+        workers[owner(node)].inbox.add(node);
+    }
+
+    private int owner(Node node) {
+        return (PackedBoard.hash(node.getBoard()) & Integer.MAX_VALUE) % workers.length;
+    }
+
+    // Replaces the best solution if the goal is cheaper.
+    private void offerSolution(Node goal) {
+        best.accumulateAndGet(goal, (cur, node) ->
+                cur == null || node.getgValue() < cur.getgValue() ? node : cur);
+    }
+
+    // The search is over when every worker is idle and nothing is in transit. The activity count is read before and
+    // after, so a worker that woke up and went back to sleep while the flags were being read isn't missed.
+    private boolean quiescent() {
+        long startActivity = activity.get();
+        if (inFlight.get() != 0) {
+            return false;
+        }
+
+        for (Worker worker : workers) {
+            if (!worker.idle) {
+                return false;
+            }
+        }
+
+        return inFlight.get() == 0 && activity.get() == startActivity;
+    }
+
+    // A worker owns the open list and closed list for its share of the boards. seen holds the lowest g value any node
+    // for each owned board has arrived with, whether that node is still in open or was already expanded.
+    private class Worker implements Runnable {
+
+        private final ConcurrentLinkedQueue<Node> inbox = new ConcurrentLinkedQueue<>();
+        private final OpenList open = new BucketOpenList();
+        private final StateTable seen = newClosed();
+
+        private volatile boolean idle = true;
+        private long expanded = 0;
+
+        @Override
+        public void run() {
+            while (!done && !isCancelled()) {
+                Node node;
+                while ((node = inbox.poll()) != null) {
+                    if (idle) {
+                        idle = false;
+                        activity.incrementAndGet();
+                    }
+
+                    receive(node);
+                    inFlight.decrementAndGet();
+                }
+
+                node = open.peek();
+                Node solution = best.get();
+
+                if (node != null && (solution == null || node.getfValue() < solution.getgValue())) {
+                    expand(open.poll());
+                    continue;
+                }
+
+                idle = true;
+                if (quiescent()) {
+                    done = true;
+                }
+
+                Thread.yield();
+            }
+        }
+
+        // Puts the node in open unless a node for the same board already arrived with a g value at least as low.
+        private void receive(Node node) {
+            int g = seen.get(node.getBoard());
+            if (g != StateTable.NOT_FOUND && g <= node.getgValue()) {
+                return;
+            }
+
+            seen.put(node.getBoard(), node.getgValue());
+            open.add(node);
+        }
+
+        private void expand(Node node) {
+            // A cheaper path to this board arrived after the node was put in open.
+            if (node.getgValue() > seen.get(node.getBoard())) {
+                return;
+            }
+
+            if (node.isGoal()) {
+                offerSolution(node);
+                return;
+            }
+
+            expanded++;
+
+            for (Node successor : node.getSuccessors()) {
+                if (owner(successor) == owner(node)) {
+                    receive(successor);
+                } else {
+                    send(successor);
+                }
+            }
+        }
+    }
+
+    // Neither of these inherited functions need to be used. It's bad style but necessary for the Driver to be written
+    // elegantly.
+    @Override
+    protected void processSuccessor(Node node) {
+    }
+
+    @Override
+    protected boolean terminate() {
+        return done;
+    }
+}
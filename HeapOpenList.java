@@ -0,0 +1,61 @@
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+// An open list backed by a binary heap. Any ordering can be used, but contains() and remove() have to scan the whole
+// heap.
+public class HeapOpenList implements OpenList {
+
+    private final PriorityQueue<Node> queue;
+
+    public HeapOpenList(Comparator<Node> comparator) {
+        queue = new PriorityQueue<>(comparator);
+    }
+
+    @Override
+    public void add(Node node) {
+        queue.add(node);
+    }
+
+    @Override
+    public Node poll() {
+        return queue.poll();
+    }
+
+    @Override
+    public Node peek() {
+        return queue.peek();
+    }
+
+    @Override
+    public boolean contains(Node node) {
+        return queue.contains(node);
+    }
+
+    // A heap can only be searched by scanning it.
+    @Override
+    public Node get(Node node) {
+        for (Node cur : this) {
+            if (cur.equals(node)) {
+                return cur;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public boolean remove(Node node) {
+        return queue.remove(node);
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return queue.iterator();
+    }
+}
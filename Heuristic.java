@@ -0,0 +1,369 @@
+// The heuristic tables for one goal and one heuristic type. The tables are only read once they are built, so a single
+// Heuristic can be shared by any number of searches running at the same time. Every heuristic is kept as a sum of
+// parts that a single move only changes a few of, so delta() can update a parent's value instead of rescanning the
+// board for every successor.
+//
+// Boards with more than 16 tiles are wide packed boards (see WideBoard) and are evaluated by the methods taking two
+// longs. Their linear conflict tables are keyed differently, since a table indexed by five tiles of five bits each
+// would need 32 MB for every line.
+public class Heuristic {
+
+    private static final int EMPTY_SPACE = 0;
+
+    // Bits per tile in the keys of the wide linear conflict table.
+    private static final int CODE_BITS = 3;
+
+    private final int type;
+    private final long goal;
+    private final long goalHigh;
+    private final int dimensions;
+    private final boolean wide;
+
+    // For each tile and each position, what that tile contributes to the heuristic when it sits at that position:
+    // whether it is misplaced for the simple heuristic, otherwise its manhattan distance.
+    private final int[][] table;
+
+    // The linear conflict penalty of each row and each column, indexed by the line's tiles packed the same way as a
+    // board (four bits per tile, in order along the line). Only built for the linear conflict heuristic on boards that
+    // fit in a single long.
+    private final byte[][] rowConflicts;
+    private final byte[][] colConflicts;
+
+    // The linear conflict tables for wide boards. A line's penalty only depends on the goal positions along the line of
+    // the tiles whose goal is in that line, so each tile in a line is coded as 0 if its goal is in another line and
+    // otherwise as one more than its goal position along the line. The codes of a line, three bits each, index a single
+    // penalty table shared by every row and column.
+    private final int[][] rowCodes;
+    private final int[][] colCodes;
+    private final byte[] lineConflicts;
+
+    // Only loaded for the pattern database heuristic.
+    private final PatternDatabase patternDatabase;
+
+    public Heuristic(Puzzle goal, int type) {
+        this.type = type;
+        dimensions = goal.getDimensions();
+        wide = dimensions * dimensions > PackedBoard.MAX_TILES;
+
+        if (type != Node.SIMPLE_HEURISTIC && type != Node.MANHATTAN_HEURISTIC &&
+                type != Node.PATTERN_DATABASE_HEURISTIC && type != Node.LINEAR_CONFLICT_HEURISTIC) {
+            throw new IllegalArgumentException("Unknown heuristic type: " + type);
+        }
+
+        if (wide && type == Node.PATTERN_DATABASE_HEURISTIC) {
+            throw new IllegalArgumentException("The pattern database only supports boards with at most " +
+                    PackedBoard.MAX_TILES + " tiles");
+        }
+
+        this.goal = wide ? goal.packLow() : goal.pack();
+        goalHigh = wide ? goal.packHigh() : 0;
+
+        table = buildTable(type == Node.SIMPLE_HEURISTIC);
+
+        if (type == Node.LINEAR_CONFLICT_HEURISTIC && !wide) {
+            int numKeys = 1 << (dimensions << 2);
+            rowConflicts = new byte[dimensions][numKeys];
+            colConflicts = new byte[dimensions][numKeys];
+            buildConflictTables();
+        } else {
+            rowConflicts = null;
+            colConflicts = null;
+        }
+
+        if (type == Node.LINEAR_CONFLICT_HEURISTIC && wide) {
+            rowCodes = new int[dimensions][dimensions * dimensions];
+            colCodes = new int[dimensions][dimensions * dimensions];
+            lineConflicts = new byte[1 << (CODE_BITS * dimensions)];
+            buildWideConflictTables();
+        } else {
+            rowCodes = null;
+            colCodes = null;
+            lineConflicts = null;
+        }
+
+        if (type == Node.PATTERN_DATABASE_HEURISTIC) {
+            patternDatabase = PatternDatabase.forGoal(this.goal, dimensions);
+        } else {
+            patternDatabase = null;
+        }
+    }
+
+    // Computes the heuristic from scratch. This is only needed for start nodes since every successor's heuristic is
+    // derived from its parent's.
+    public int evaluate(long board) {
+        if (type == Node.PATTERN_DATABASE_HEURISTIC) {
+            return patternDatabase.heuristic(board);
+        }
+
+        int heuristic = 0;
+        for (int position = 0; position < dimensions * dimensions; position++) {
+            heuristic += table[PackedBoard.getValue(board, position)][position];
+        }
+
+        if (type == Node.LINEAR_CONFLICT_HEURISTIC) {
+            for (int line = 0; line < dimensions; line++) {
+                heuristic += rowConflicts[line][rowKey(board, line)];
+                heuristic += colConflicts[line][colKey(board, line)];
+            }
+        }
+
+        return heuristic;
+    }
+
+    // How much the heuristic changes when the tile on the board slides from one position to another. A move relocates
+    // exactly one tile, so only that tile's contribution has to be replaced.
+    public int delta(long board, int tile, int from, int to) {
+        if (type == Node.PATTERN_DATABASE_HEURISTIC) {
+            return patternDatabase.delta(board, tile, from, to);
+        }
+
+        if (type == Node.LINEAR_CONFLICT_HEURISTIC) {
+            return table[tile][to] - table[tile][from] + conflictDelta(board, from, to);
+        }
+
+        return table[tile][to] - table[tile][from];
+    }
+
+    // How much the linear conflicts change when the tile at from slides into the empty space at to. A sideways move
+    // keeps the order of tiles in the tile's row, so only the two columns it leaves and enters can change, and the
+    // same goes for the two rows of an up or down move.
+    private int conflictDelta(long board, int from, int to) {
+        long successor = PackedBoard.move(board, to, from);
+
+        if (from / dimensions == to / dimensions) {
+            int fromCol = from % dimensions;
+            int toCol = to % dimensions;
+
+            return colConflicts[fromCol][colKey(successor, fromCol)] + colConflicts[toCol][colKey(successor, toCol)] -
+                    colConflicts[fromCol][colKey(board, fromCol)] - colConflicts[toCol][colKey(board, toCol)];
+        }
+
+        int fromRow = from / dimensions;
+        int toRow = to / dimensions;
+
+        return rowConflicts[fromRow][rowKey(successor, fromRow)] + rowConflicts[toRow][rowKey(successor, toRow)] -
+                rowConflicts[fromRow][rowKey(board, fromRow)] - rowConflicts[toRow][rowKey(board, toRow)];
+    }
+
+    // Computes the heuristic of a wide board from scratch.
+    public int evaluate(long low, long high) {
+        int heuristic = 0;
+        for (int position = 0; position < dimensions * dimensions; position++) {
+            heuristic += table[WideBoard.getValue(low, high, position)][position];
+        }
+
+        if (type == Node.LINEAR_CONFLICT_HEURISTIC) {
+            for (int line = 0; line < dimensions; line++) {
+                heuristic += lineConflicts[wideRowKey(low, high, line)];
+                heuristic += lineConflicts[wideColKey(low, high, line)];
+            }
+        }
+
+        return heuristic;
+    }
+
+    // How much the heuristic of a wide board changes when the tile slides from one position to another.
+    public int delta(long low, long high, int tile, int from, int to) {
+        if (type == Node.LINEAR_CONFLICT_HEURISTIC) {
+            return table[tile][to] - table[tile][from] + wideConflictDelta(low, high, tile, from, to);
+        }
+
+        return table[tile][to] - table[tile][from];
+    }
+
+    // The same as conflictDelta(), for wide boards.
+    private int wideConflictDelta(long low, long high, int tile, int from, int to) {
+        long successorLow = WideBoard.setLow(WideBoard.setLow(low, from, EMPTY_SPACE), to, tile);
+        long successorHigh = WideBoard.setHigh(WideBoard.setHigh(high, from, EMPTY_SPACE), to, tile);
+
+        if (from / dimensions == to / dimensions) {
+            int fromCol = from % dimensions;
+            int toCol = to % dimensions;
+
+            return lineConflicts[wideColKey(successorLow, successorHigh, fromCol)] +
+                    lineConflicts[wideColKey(successorLow, successorHigh, toCol)] -
+                    lineConflicts[wideColKey(low, high, fromCol)] - lineConflicts[wideColKey(low, high, toCol)];
+        }
+
+        int fromRow = from / dimensions;
+        int toRow = to / dimensions;
+
+        return lineConflicts[wideRowKey(successorLow, successorHigh, fromRow)] +
+                lineConflicts[wideRowKey(successorLow, successorHigh, toRow)] -
+                lineConflicts[wideRowKey(low, high, fromRow)] - lineConflicts[wideRowKey(low, high, toRow)];
+    }
+
+    // Packs the codes of the tiles of a row of a wide board into the low bits of an int.
+    private int wideRowKey(long low, long high, int row) {
+        int key = 0;
+        for (int col = 0; col < dimensions; col++) {
+            key |= rowCodes[row][WideBoard.getValue(low, high, row * dimensions + col)] << (col * CODE_BITS);
+        }
+
+        return key;
+    }
+
+    // Packs the codes of the tiles of a column of a wide board into the low bits of an int.
+    private int wideColKey(long low, long high, int col) {
+        int key = 0;
+        for (int row = 0; row < dimensions; row++) {
+            key |= colCodes[col][WideBoard.getValue(low, high, row * dimensions + col)] << (row * CODE_BITS);
+        }
+
+        return key;
+    }
+
+    // Packs the tiles of a row into the low bits of an int.
+    private int rowKey(long board, int row) {
+        return (int)(board >>> ((row * dimensions) << 2)) & ((1 << (dimensions << 2)) - 1);
+    }
+
+    // Packs the tiles of a column into the low bits of an int.
+    private int colKey(long board, int col) {
+        int key = 0;
+        for (int row = 0; row < dimensions; row++) {
+            key |= PackedBoard.getValue(board, row * dimensions + col) << (row << 2);
+        }
+
+        return key;
+    }
+
+    // Builds the misplaced tile or manhattan distance table for the goal. The empty space never contributes.
+    private int[][] buildTable(boolean misplaced) {
+        int numTiles = dimensions * dimensions;
+        int[][] ret = new int[numTiles][numTiles];
+
+        for (int goalPosition = 0; goalPosition < numTiles; goalPosition++) {
+            int tile = goalValue(goalPosition);
+            if (tile == EMPTY_SPACE) {
+                continue;
+            }
+
+            for (int position = 0; position < numTiles; position++) {
+                if (misplaced) {
+                    ret[tile][position] = position == goalPosition ? 0 : 1;
+                } else {
+                    ret[tile][position] = Math.abs(position / dimensions - goalPosition / dimensions) +
+                            Math.abs(position % dimensions - goalPosition % dimensions);
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    // Builds the linear conflict penalty of every possible row and column for the goal. Two tiles are in conflict when
+    // both are in their goal line but in the reverse order of their goal positions, and one of them has to leave the
+    // line and come back, which costs two moves on top of the manhattan distance. Counting two per conflicting pair
+    // overestimates when one tile conflicts with several others, so the penalty is two for every tile outside the
+    // longest run of tiles already in goal order, which is the fewest tiles that have to leave the line.
+    private void buildConflictTables() {
+        int numKeys = 1 << (dimensions << 2);
+
+        int[] goalRow = new int[dimensions * dimensions];
+        int[] goalCol = new int[dimensions * dimensions];
+        for (int position = 0; position < dimensions * dimensions; position++) {
+            goalRow[goalValue(position)] = position / dimensions;
+            goalCol[goalValue(position)] = position % dimensions;
+        }
+
+        int[] order = new int[dimensions];
+        for (int line = 0; line < dimensions; line++) {
+            for (int key = 0; key < numKeys; key++) {
+                rowConflicts[line][key] = (byte)linePenalty(key, line, goalRow, goalCol, order);
+                colConflicts[line][key] = (byte)linePenalty(key, line, goalCol, goalRow, order);
+            }
+        }
+    }
+
+    // Computes the penalty for the tiles packed in the key sitting in the line. lineOf gives each tile's goal line
+    // and indexOf its goal position along that line.
+    private int linePenalty(int key, int line, int[] lineOf, int[] indexOf, int[] order) {
+        int count = 0;
+        for (int i = 0; i < dimensions; i++) {
+            int tile = (key >>> (i << 2)) & 0xF;
+
+            if (tile != EMPTY_SPACE && tile < lineOf.length && lineOf[tile] == line) {
+                order[count++] = indexOf[tile];
+            }
+        }
+
+        return penalty(order, count);
+    }
+
+    // Builds the linear conflict codes of every tile for the goal of a wide board, and the penalty of every possible
+    // line of codes.
+    private void buildWideConflictTables() {
+        for (int position = 0; position < dimensions * dimensions; position++) {
+            int tile = goalValue(position);
+            if (tile == EMPTY_SPACE) {
+                continue;
+            }
+
+            rowCodes[position / dimensions][tile] = position % dimensions + 1;
+            colCodes[position % dimensions][tile] = position / dimensions + 1;
+        }
+
+        int codeMask = (1 << CODE_BITS) - 1;
+        int[] order = new int[dimensions];
+        for (int key = 0; key < lineConflicts.length; key++) {
+            int count = 0;
+            for (int i = 0; i < dimensions; i++) {
+                int code = (key >>> (i * CODE_BITS)) & codeMask;
+
+                if (code != 0) {
+                    order[count++] = code;
+                }
+            }
+
+            lineConflicts[key] = (byte)penalty(order, count);
+        }
+    }
+
+    // Returns the penalty for a line holding count tiles that belong in it, in the order of their goal positions. The
+    // longest increasing subsequence of goal positions is the largest set of tiles that can stay in the line.
+    private static int penalty(int[] order, int count) {
+        int[] longest = new int[count];
+        int best = 0;
+        for (int i = 0; i < count; i++) {
+            longest[i] = 1;
+            for (int j = 0; j < i; j++) {
+                if (order[j] < order[i]) {
+                    longest[i] = Math.max(longest[i], longest[j] + 1);
+                }
+            }
+
+            best = Math.max(best, longest[i]);
+        }
+
+        return 2 * (count - best);
+    }
+
+    // Returns the tile the goal has at the position.
+    private int goalValue(int position) {
+        return wide ? WideBoard.getValue(goal, goalHigh, position) : PackedBoard.getValue(goal, position);
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    // Returns the packed goal, or the low long of the goal if it is a wide board.
+    public long getGoal() {
+        return goal;
+    }
+
+    // Returns the high long of the goal if it is a wide board, otherwise 0.
+    public long getGoalHigh() {
+        return goalHigh;
+    }
+
+    // Returns whether boards for this goal are wide packed boards.
+    public boolean isWide() {
+        return wide;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+}
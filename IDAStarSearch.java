@@ -1,5 +1,4 @@
 import java.nio.file.Path;
-import java.util.HashMap;
 
 // Implements the Iterative Deepening A* search algorithm.
 public class IDAStarSearch extends Search {
@@ -8,65 +7,87 @@ public class IDAStarSearch extends Search {
 
     private int threshold;
 
+    // Null unless a transposition table was asked for.
+    private TranspositionTable table;
+
     // IDA* requires files containing the 15 puzzle to be solved, what the solved state looks like, and what heuristic
     // to use.
     public IDAStarSearch(Path fileName, Path goal, int heuristicType) {
-        super();
+        this(new SearchContext(new Puzzle(goal), heuristicType), new Puzzle(fileName));
+    }
 
-        Node.setGoal(goal);
-        Node.setHeuristicType(heuristicType);
+    // Solves the puzzle for the goal and heuristic in the context.
+    public IDAStarSearch(SearchContext context, Puzzle start) {
+        super(context);
 
-        root = new Node(fileName);
-        threshold = root.getHeuristic();
+        root = Node.create(start, context);
+        threshold = root.getfValue();
+    }
 
-        setClosed(new HashMap<>());
+    // Same as above, but skips boards already reached in the same iteration with the help of a transposition table
+    // taking at most the specified number of bytes. A size of 0 means no table. Puzzles larger than 4x4 never use one.
+    public IDAStarSearch(SearchContext context, Puzzle start, long transpositionBytes) {
+        this(context, start);
+
+        if (transpositionBytes > 0 && !context.isWide()) {
+            table = new TranspositionTable(transpositionBytes);
+        }
     }
 
-    // Until a goal node is found, do a depth first search based on the f value of the node.
+    // Until a goal node is found, do a depth first search based on the f value of the node. Each search raises the
+    // threshold to the smallest f value that exceeded it, so the first solution found is optimal. The depth first
+    // search itself runs on a single mutable board, and Nodes are only created for the solution path. All of its time
+    // is counted as the expansion phase.
     public Node search() {
-        long startTime = System.currentTimeMillis();
+        long startTime = startClock();
 
+        IDAStarWorker worker = new IDAStarWorker(root, table);
+        int iteration = 0;
         while (true) {
-            Node result = searchHelper(root);
-
-            if (result.isGoal()) {
-                long endTime = System.currentTimeMillis();
-                setRunTime(startTime, endTime);
-
-                return result;
+            SearchEvents.IterationEvent event = SearchEvents.beginIteration();
+            long startExpanded = worker.getNumExpanded();
+            iteration++;
+            setBound(threshold);
+            if (table != null) {
+                table.newIteration();
             }
 
-            threshold = result.getfValue();
-        }
-    }
+            // The worker asks whether it was cancelled every few thousand nodes, which is also when progress is
+            // sampled.
+            long phaseStart = getPhaseTimer().start();
+            int result = worker.search(threshold, () -> {
+                sample(worker.getNumExpanded());
+                return isCancelled();
+            });
+            getPhaseTimer().stop(PhaseTimer.EXPANSION, phaseStart);
 
-    // If the current node's f value exceeds that of threshold, return. If the current node is a goal node, then stop
-    // searching and return it as the solution. Otherwise make a recursive call on each successor to this node. This
-    // also keeps track of the node with the minimum f value that exceeds the threshold so that the threshold can be
-    // increased in the smallest increment possible after all searches at this threshold have been made.
-    private Node searchHelper(Node node) {
-        if (node.getfValue() > threshold) {
-            return node;
-        }
+            SearchEvents.endIteration(event, this, iteration, threshold, worker.getNumExpanded() - startExpanded);
 
-        if (node.isGoal()) {
-            return node;
-        }
+            if (isCancelled()) {
+                addNumExpanded(worker.getNumExpanded());
+                checkCancelled();
+            }
 
-        Node min = new Node();
-        for (Node successor : node.getSuccessors()) {
-            Node searchNode = searchHelper(successor);
+            if (result == IDAStarWorker.FOUND) {
+                addNumExpanded(worker.getNumExpanded());
 
-            if (searchNode.isGoal()) {
-                return searchNode;
+                long endTime = System.nanoTime();
+                setRunTime(startTime, endTime);
+
+                return worker.getSolution(root);
             }
 
-            if (searchNode.getfValue() < min.getfValue() && searchNode.getfValue() > threshold) {
-                min = searchNode;
+            if (result == Integer.MAX_VALUE) {
+                throw new RuntimeException("ERROR: No solution found");
             }
+
+            threshold = result;
         }
+    }
 
-        return min;
+    // How many subtrees the transposition table pruned, or 0 if there isn't one.
+    public long getTranspositionHits() {
+        return table == null ? 0 : table.getHits();
     }
 
     // Neither of these inherited functions need to be used. It's bad style but necessary for the Driver to be written
@@ -0,0 +1,300 @@
+import java.util.function.BooleanSupplier;
+
+// The depth first search at the heart of IDA*. Instead of creating Nodes, it works on a single packed board that is
+// changed by making a move on the way down and unmaking it on the way back up. The path is kept on an explicit stack
+// rather than the JVM's call stack, moving the empty space straight back to where it just came from is never tried,
+// and nothing is allocated per node. A worker can start from any node, which lets several workers split one search.
+//
+// Boards with more than 16 tiles are searched by a copy of the loop that works on a wide packed board held in two
+// longs, so the 15 puzzle's loop doesn't pay for checking which kind of board it has at every node.
+//
+// A worker can be given a transposition table, which the packed loop checks before moving down to a board so a board
+// already reached in the same iteration isn't searched again. Wide boards don't fit its keys and don't use it.
+class IDAStarWorker {
+
+    // Returned by search() when a goal was reached.
+    public static final int FOUND = -1;
+
+    // How many times the search backs up between checks of whether it has been cancelled. Must be a power of two.
+    private static final int CANCEL_CHECK_INTERVAL = 1 << 12;
+
+    private final Heuristic heuristic;
+    private final PhaseTimer timer;
+    private final boolean timed;
+    private final long goal;
+    private final long goalHigh;
+    private final boolean wide;
+    private final int[][] moves;
+    private final long startBoard;
+    private final long startBoardHigh;
+    private final int startEmptySpace;
+    private final int startHeuristic;
+    private final int startgValue;
+    private final int startPrevious;
+    private final TranspositionTable table;
+
+    private long board;
+    private long boardHigh;
+    private int emptySpace;
+    private int depth;
+
+    // For each depth: the position the empty space came from, the index of the next move to try, and the heuristic.
+    private int[] previous;
+    private int[] nextMove;
+    private int[] heuristics;
+
+    private long numExpanded;
+
+    // Starts searching from the node. If the node has a parent, the move back to the parent is never tried.
+    public IDAStarWorker(Node start) {
+        this(start, null);
+    }
+
+    // Same as above, but prunes boards the transposition table has seen, unless it is null.
+    public IDAStarWorker(Node start, TranspositionTable table) {
+        this.table = table;
+        heuristic = start.getContext().getHeuristic();
+        timer = start.getContext().getPhaseTimer();
+        timed = timer.isEnabled();
+        goal = start.getContext().getGoal();
+        goalHigh = start.getContext().getGoalHigh();
+        wide = start.getContext().isWide();
+        moves = start.getContext().getMoves();
+        startBoard = start.getBoard();
+        startBoardHigh = wide ? ((WideNode)start).getBoardHigh() : 0;
+        startEmptySpace = start.getEmptySpace();
+        startHeuristic = start.getHeuristic();
+        startgValue = start.getgValue();
+        startPrevious = start.getParent() == null ? -1 : start.getParent().getEmptySpace();
+
+        previous = new int[0];
+        nextMove = new int[0];
+        heuristics = new int[0];
+        numExpanded = 0;
+    }
+
+    // Searches every path whose f value doesn't exceed the threshold. Returns FOUND if a goal was reached, in which
+    // case getPath() holds the moves that lead to it. Otherwise returns the smallest f value that exceeded the
+    // threshold, or Integer.MAX_VALUE if no path did.
+    public int search(int threshold) {
+        return search(threshold, () -> false);
+    }
+
+    // Same as above, but gives up and returns Integer.MAX_VALUE once cancelled returns true. This is checked every few
+    // thousand nodes, so it has to be cheap.
+    public int search(int threshold, BooleanSupplier cancelled) {
+        return wide ? searchWide(threshold, cancelled) : searchPacked(threshold, cancelled);
+    }
+
+    private int searchPacked(int threshold, BooleanSupplier cancelled) {
+        board = startBoard;
+        emptySpace = startEmptySpace;
+        depth = 0;
+
+        int f = startgValue + startHeuristic;
+        if (f > threshold) {
+            return f;
+        }
+
+        if (board == goal) {
+            return FOUND;
+        }
+
+        ensureCapacity(threshold - startgValue + 2);
+        previous[0] = startPrevious;
+        nextMove[0] = 0;
+        heuristics[0] = startHeuristic;
+        numExpanded++;
+
+        if (table != null) {
+            table.visit(board, startgValue);
+        }
+
+        int min = Integer.MAX_VALUE;
+        int backtracks = 0;
+        while (true) {
+            int[] candidates = moves[emptySpace];
+
+            if (nextMove[depth] == candidates.length) {
+                if (depth == 0) {
+                    return min;
+                }
+
+                // Unmake the last move by sliding the tile back to where it came from.
+                int from = previous[depth];
+                board = PackedBoard.move(board, emptySpace, from);
+                emptySpace = from;
+                depth--;
+
+                if ((++backtracks & (CANCEL_CHECK_INTERVAL - 1)) == 0 && cancelled.getAsBoolean()) {
+                    return Integer.MAX_VALUE;
+                }
+
+                continue;
+            }
+
+            int move = candidates[nextMove[depth]++];
+            if (move == previous[depth]) {
+                continue;
+            }
+
+            int tile = PackedBoard.getValue(board, move);
+            int successorHeuristic;
+            if (timed) {
+                long phaseStart = timer.start();
+                successorHeuristic = heuristics[depth] + heuristic.delta(board, tile, move, emptySpace);
+                timer.stop(PhaseTimer.HEURISTIC, phaseStart);
+            } else {
+                successorHeuristic = heuristics[depth] + heuristic.delta(board, tile, move, emptySpace);
+            }
+
+            f = startgValue + depth + 1 + successorHeuristic;
+            if (f > threshold) {
+                if (f < min) {
+                    min = f;
+                }
+
+                continue;
+            }
+
+            long successor = PackedBoard.move(board, emptySpace, move);
+            if (table != null && table.visit(successor, startgValue + depth + 1)) {
+                continue;
+            }
+
+            board = successor;
+            depth++;
+            previous[depth] = emptySpace;
+            nextMove[depth] = 0;
+            heuristics[depth] = successorHeuristic;
+            emptySpace = move;
+            numExpanded++;
+
+            if (board == goal) {
+                return FOUND;
+            }
+        }
+    }
+
+    // The same search as searchPacked(), on a wide packed board.
+    private int searchWide(int threshold, BooleanSupplier cancelled) {
+        board = startBoard;
+        boardHigh = startBoardHigh;
+        emptySpace = startEmptySpace;
+        depth = 0;
+
+        int f = startgValue + startHeuristic;
+        if (f > threshold) {
+            return f;
+        }
+
+        if (board == goal && boardHigh == goalHigh) {
+            return FOUND;
+        }
+
+        ensureCapacity(threshold - startgValue + 2);
+        previous[0] = startPrevious;
+        nextMove[0] = 0;
+        heuristics[0] = startHeuristic;
+        numExpanded++;
+
+        int min = Integer.MAX_VALUE;
+        int backtracks = 0;
+        while (true) {
+            int[] candidates = moves[emptySpace];
+
+            if (nextMove[depth] == candidates.length) {
+                if (depth == 0) {
+                    return min;
+                }
+
+                int from = previous[depth];
+                moveWide(emptySpace, from);
+                emptySpace = from;
+                depth--;
+
+                if ((++backtracks & (CANCEL_CHECK_INTERVAL - 1)) == 0 && cancelled.getAsBoolean()) {
+                    return Integer.MAX_VALUE;
+                }
+
+                continue;
+            }
+
+            int move = candidates[nextMove[depth]++];
+            if (move == previous[depth]) {
+                continue;
+            }
+
+            int tile = WideBoard.getValue(board, boardHigh, move);
+            int successorHeuristic;
+            if (timed) {
+                long phaseStart = timer.start();
+                successorHeuristic = heuristics[depth] + heuristic.delta(board, boardHigh, tile, move, emptySpace);
+                timer.stop(PhaseTimer.HEURISTIC, phaseStart);
+            } else {
+                successorHeuristic = heuristics[depth] + heuristic.delta(board, boardHigh, tile, move, emptySpace);
+            }
+
+            f = startgValue + depth + 1 + successorHeuristic;
+            if (f > threshold) {
+                if (f < min) {
+                    min = f;
+                }
+
+                continue;
+            }
+
+            moveWide(emptySpace, move);
+            depth++;
+            previous[depth] = emptySpace;
+            nextMove[depth] = 0;
+            heuristics[depth] = successorHeuristic;
+            emptySpace = move;
+            numExpanded++;
+
+            if (board == goal && boardHigh == goalHigh) {
+                return FOUND;
+            }
+        }
+    }
+
+    // Slides the tile at tilePosition of the wide board into emptyPosition.
+    private void moveWide(int emptyPosition, int tilePosition) {
+        int tile = WideBoard.getValue(board, boardHigh, tilePosition);
+        board = WideBoard.setLow(WideBoard.setLow(board, tilePosition, 0), emptyPosition, tile);
+        boardHigh = WideBoard.setHigh(WideBoard.setHigh(boardHigh, tilePosition, 0), emptyPosition, tile);
+    }
+
+    // Returns the positions the empty space moved to on the way from the start to the goal. Only meaningful after
+    // search() returned FOUND.
+    public int[] getPath() {
+        int[] path = new int[depth];
+        for (int i = 1; i <= depth; i++) {
+            path[i - 1] = i == depth ? emptySpace : previous[i + 1];
+        }
+
+        return path;
+    }
+
+    // Rebuilds the Nodes along the path found by search(), starting from the node.
+    public Node getSolution(Node start) {
+        Node node = start;
+        for (int move : getPath()) {
+            node = node.getSuccessor(move);
+        }
+
+        return node;
+    }
+
+    public long getNumExpanded() {
+        return numExpanded;
+    }
+
+    private void ensureCapacity(int size) {
+        if (previous.length < size) {
+            previous = new int[size];
+            nextMove = new int[size];
+            heuristics = new int[size];
+        }
+    }
+}
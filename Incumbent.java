@@ -0,0 +1,43 @@
+// A solution found by an anytime search, as handed to the subscribers of Search.getIncumbentPublisher() the moment it
+// is found. Besides the solution it holds its suboptimality bound, which is how many times longer than an optimal
+// solution it can be at most, along with how far the search had got when it was found.
+public class Incumbent {
+
+    private final Node solution;
+    private final double suboptimalityBound;
+    private final long expanded;
+    private final double seconds;
+
+    public Incumbent(Node solution, double suboptimalityBound, long expanded, double seconds) {
+        this.solution = solution;
+        this.suboptimalityBound = suboptimalityBound;
+        this.expanded = expanded;
+        this.seconds = seconds;
+    }
+
+    public Node getSolution() {
+        return solution;
+    }
+
+    public int getLength() {
+        return solution.getgValue();
+    }
+
+    public double getSuboptimalityBound() {
+        return suboptimalityBound;
+    }
+
+    public long getExpanded() {
+        return expanded;
+    }
+
+    public double getSeconds() {
+        return seconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d moves, at most %.3f times optimal, after %d expanded and %.3f seconds", getLength(),
+                suboptimalityBound, expanded, seconds);
+    }
+}
@@ -0,0 +1,189 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// An open list backed by a binary heap that also records where each board sits in the heap. This makes contains()
+// and get() constant time and lets remove() and update() fix up the heap in logarithmic time, instead of scanning the
+// whole heap like HeapOpenList does. Only one node per board is ever kept.
+public class IndexedHeapOpenList implements OpenList {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final Comparator<Node> comparator;
+    private final StateTable positions;
+    private Node[] heap;
+    private int size;
+
+    public IndexedHeapOpenList(Comparator<Node> comparator) {
+        this.comparator = comparator;
+        positions = new StateTable();
+        heap = new Node[DEFAULT_CAPACITY];
+        size = 0;
+    }
+
+    // Adds the node, or replaces the node already in open for the same board.
+    @Override
+    public void add(Node node) {
+        if (positions.containsKey(node.getBoard())) {
+            update(node);
+            return;
+        }
+
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size << 1);
+        }
+
+        heap[size] = node;
+        positions.put(node.getBoard(), size);
+        siftUp(size++);
+    }
+
+    @Override
+    public Node poll() {
+        if (size == 0) {
+            return null;
+        }
+
+        Node ret = heap[0];
+        removeAt(0);
+        return ret;
+    }
+
+    @Override
+    public Node peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    @Override
+    public boolean contains(Node node) {
+        return positions.containsKey(node.getBoard());
+    }
+
+    @Override
+    public Node get(Node node) {
+        int position = positions.get(node.getBoard());
+        return position == StateTable.NOT_FOUND ? null : heap[position];
+    }
+
+    @Override
+    public boolean remove(Node node) {
+        int position = positions.get(node.getBoard());
+        if (position == StateTable.NOT_FOUND) {
+            return false;
+        }
+
+        removeAt(position);
+        return true;
+    }
+
+    // Replaces the node for the same board in place and moves it up or down the heap to match its new value.
+    @Override
+    public void update(Node node) {
+        int position = positions.get(node.getBoard());
+        if (position == StateTable.NOT_FOUND) {
+            add(node);
+            return;
+        }
+
+        heap[position] = node;
+        siftUp(position);
+        siftDown(position);
+    }
+
+    // Restores heap order after the values the comparator reads changed for nodes already in the heap, such as every
+    // f' value after a weight change. Sifting down from the last parent to the root rebuilds the heap in place in
+    // linear time, which is much cheaper than polling every node out and adding it back.
+    public void heapify() {
+        for (int position = (size >>> 1) - 1; position >= 0; position--) {
+            siftDown(position);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return new Iterator<Node>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Node next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+
+                return heap[next++];
+            }
+        };
+    }
+
+    // Removes the node at the position by moving the last node into its place.
+    private void removeAt(int position) {
+        positions.remove(heap[position].getBoard());
+        size--;
+
+        if (position != size) {
+            heap[position] = heap[size];
+            positions.put(heap[position].getBoard(), position);
+            heap[size] = null;
+
+            siftUp(position);
+            siftDown(position);
+        } else {
+            heap[size] = null;
+        }
+    }
+
+    private void siftUp(int position) {
+        Node node = heap[position];
+
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (comparator.compare(node, heap[parent]) >= 0) {
+                break;
+            }
+
+            place(heap[parent], position);
+            position = parent;
+        }
+
+        place(node, position);
+    }
+
+    private void siftDown(int position) {
+        Node node = heap[position];
+        int half = size >>> 1;
+
+        while (position < half) {
+            int child = (position << 1) + 1;
+            int right = child + 1;
+
+            if (right < size && comparator.compare(heap[right], heap[child]) < 0) {
+                child = right;
+            }
+
+            if (comparator.compare(node, heap[child]) <= 0) {
+                break;
+            }
+
+            place(heap[child], position);
+            position = child;
+        }
+
+        place(node, position);
+    }
+
+    private void place(Node node, int position) {
+        heap[position] = node;
+        positions.put(node.getBoard(), position);
+    }
+}
@@ -1,28 +1,28 @@
-import java.awt.*;
 import java.nio.file.Path;
 import java.util.*;
 
-// Class representing a node. A node contains a Puzzle representing the 15 puzzle board and all the data needed to
+// Class representing a node. A node contains a packed board representing the 15 puzzle and all the data needed to
 // represent any associated values (i.e. f, f', g values, etc.). It also contains the getSuccessors() method which
-// returns a list of valid successor configurations.
+// returns a list of valid successor configurations. Boards are only turned back into a Puzzle when they are printed.
+// The goal, heuristic, and weight come from the SearchContext of the search the node belongs to. Boards with more than
+// 16 tiles don't fit in the packed board, and are held by WideNode instead.
 public class Node {
 
     // Constants that represent the empty space in the 15 puzzle and each heuristic type.
     private static final int EMPTY_SPACE = 0;
     public static final int SIMPLE_HEURISTIC = 0;
     public static final int MANHATTAN_HEURISTIC = 1;
+    public static final int PATTERN_DATABASE_HEURISTIC = 2;
+    public static final int LINEAR_CONFLICT_HEURISTIC = 3;
 
-    private static int heuristicType = 0;
-    private static double weight = 1;
-    private static Puzzle goal = null;
-
-    private Puzzle puzzle;
-    private Point emptySpace;
+    private long board;
+    private int emptySpace;
     private int heuristic;
     private int gValue;
     private int fValue;
     private double fPrimeValue;
     private Node parent;
+    private SearchContext context;
 
     // Default constructor sets values to infinity.
     public Node() {
@@ -34,100 +34,110 @@ public class Node {
 
     // Creates a new Node copied from another Node.
     public Node(Node node) {
-        puzzle = new Puzzle(node.puzzle);
-        emptySpace = new Point(node.emptySpace);
+        board = node.board;
+        emptySpace = node.emptySpace;
         heuristic = node.heuristic;
         gValue = node.gValue;
         fValue = node.fValue;
         fPrimeValue = node.fPrimeValue;
         parent = node.parent;
+        context = node.context;
     }
 
     // Creates a new Node from a file containing a representation of a 15 puzzle. After creating the 15 puzzle
-    // representation, it calculates all the relevant values.
-    public Node(Path fileName) {
-        puzzle = new Puzzle(fileName);
-        emptySpace = puzzle.getPoint(EMPTY_SPACE);
-        initializeHeuristic();
+    // representation, it calculates all the relevant values for the search the context belongs to.
+    public Node(Path fileName, SearchContext context) {
+        this(new Puzzle(fileName), context);
+    }
+
+    // Creates a new Node from a Puzzle and calculates all the relevant values for the search the context belongs to.
+    public Node(Puzzle puzzle, SearchContext context) {
+        checkDimensions(puzzle, context);
+
+        this.context = context;
+        board = puzzle.pack();
+        emptySpace = PackedBoard.getPosition(board, EMPTY_SPACE, puzzle.getDimensions() * puzzle.getDimensions());
+        heuristic = context.getHeuristic().evaluate(board);
         gValue = 0;
         calcfValue();
         calcfPrimeValue();
         parent = null;
     }
 
-    // Finds successors by swapping the empty space with adjacent spaces and checking if that space produces a valid
-    // board state.
-    protected java.util.List<Node> getSuccessors() {
-        java.util.List<Node> ret = new ArrayList<>();
-        int emptyRow = (int)emptySpace.getX();
-        int emptyCol = (int)emptySpace.getY();
-
-        for (int row = -1; row <= 1; row++) {
-            for (int col = -1; col <= 1; col++) {
-                Point move = new Point(emptyRow + row, emptyCol + col);
-
-                if (checkValidMove(move)) {
-                    Node successor = new Node(this);
-                    successor.makeMove(move);
-
-                    successor.initializeHeuristic();
-                    successor.parent = this;
-                    successor.calcgValue(this);
-                    successor.calcfValue();
-                    successor.calcfPrimeValue();
-
-                    ret.add(successor);
-                }
-            }
-        }
+    // Creates a start node whose board and heuristic were worked out by a subclass.
+    protected Node(SearchContext context, long board, int emptySpace, int heuristic) {
+        this.context = context;
+        this.board = board;
+        this.emptySpace = emptySpace;
+        this.heuristic = heuristic;
+        gValue = 0;
+        calcfValue();
+        calcfPrimeValue();
+        parent = null;
+    }
 
-        return ret;
+    // Creates the start node for the Puzzle, which is a WideNode if the context's boards are wide.
+    public static Node create(Puzzle puzzle, SearchContext context) {
+        return context.isWide() ? new WideNode(puzzle, context) : new Node(puzzle, context);
     }
 
-    // If the point is adjacent to the empty space, the empty space and the point swap locations in the 15 puzzle.
-    private void makeMove(Point move) {
-        if (checkValidMove(move)) {
-            int val = puzzle.getValue(move);
+    protected static void checkDimensions(Puzzle puzzle, SearchContext context) {
+        if (puzzle.getDimensions() != context.getDimensions()) {
+            throw new IllegalArgumentException("Puzzle And Goal Dimensions Differ");
+        }
+    }
 
-            setValue(emptySpace, val);
-            setValue(move, EMPTY_SPACE);
+    // Finds successors by sliding each tile adjacent to the empty space into it.
+    protected List<Node> getSuccessors() {
+        List<Node> ret = new ArrayList<>(4);
 
-            emptySpace = move;
+        for (int move : context.getMoves()[emptySpace]) {
+            ret.add(getSuccessor(move));
         }
+
+        return ret;
     }
 
-    // Checks to see if the move would produce a valid board state or not.
-    private boolean checkValidMove(Point point) {
-        int row = (int)point.getX();
-        int col = (int)point.getY();
-        int emptyRow = (int)getEmptySpace().getX();
-        int emptyCol = (int)getEmptySpace().getY();
+    // Creates the successor where the tile at the specified position slides into the empty space. The position must
+    // be adjacent to the empty space.
+    protected Node getSuccessor(int move) {
+        int tile = getValue(move);
 
-        if (row < 0 || row >= puzzle.getDimensions()) {
-            return false;
-        }
+        Node successor = copy();
+        successor.makeMove(move);
 
-        if (row != emptyRow && row != emptyRow + 1 && row != emptyRow - 1) {
-            return false;
-        }
+        PhaseTimer timer = context.getPhaseTimer();
+        long phaseStart = timer.start();
+        successor.heuristic = heuristic + heuristicDelta(tile, move);
+        timer.stop(PhaseTimer.HEURISTIC, phaseStart);
 
-        if (col < 0 || col >= puzzle.getDimensions()) {
-            return  false;
-        }
+        successor.parent = this;
+        successor.calcgValue(this);
+        successor.calcfValue();
+        successor.calcfPrimeValue();
 
-        if (col != emptyCol && col != emptyCol + 1 && col != emptyCol - 1) {
-            return  false;
-        }
+        return successor;
+    }
 
-        if (row != emptyRow && col != emptyCol) {
-            return  false;
-        }
+    // Returns a copy of this node for a successor to be made from.
+    protected Node copy() {
+        return new Node(this);
+    }
 
-        if (row == emptyRow && col == emptyCol) {
-            return false;
-        }
+    // The empty space and the tile at the specified position swap locations in the 15 puzzle. The position must be
+    // adjacent to the empty space.
+    protected void makeMove(int move) {
+        board = PackedBoard.move(board, emptySpace, move);
+        emptySpace = move;
+    }
+
+    protected void setEmptySpace(int emptySpace) {
+        this.emptySpace = emptySpace;
+    }
 
-        return  true;
+    // How much the heuristic changes when the tile at the specified position slides into the empty space.
+    protected int heuristicDelta(int tile, int move) {
+        return context.getHeuristic().delta(board, tile, move, emptySpace);
     }
 
     public int getfValue() {
@@ -143,7 +153,11 @@ public class Node {
     }
 
     public void calcfPrimeValue() {
-        fPrimeValue = gValue + weight * heuristic;
+        fPrimeValue = gValue + context.getWeight() * heuristic;
+    }
+
+    public int getgValue() {
+        return gValue;
     }
 
     private void calcgValue(Node node) {
@@ -154,65 +168,26 @@ public class Node {
         return heuristic;
     }
 
-    private void initializeHeuristic() {
-        if (heuristicType == SIMPLE_HEURISTIC) {
-            heuristic = simpleHeuristic();
-        }
-
-        if (heuristicType == MANHATTAN_HEURISTIC) {
-            heuristic = manhattanHeuristic();
-        }
-    }
-
-    // Simply counts how many tiles are out of place.
-    private int simpleHeuristic() {
-        int heuristic = 0;
-
-        for (int row = 0; row < puzzle.getDimensions(); row++) {
-            for (int col = 0; col < puzzle.getDimensions(); col++) {
-                if (getValue(row, col) != EMPTY_SPACE && getValue(row, col) != goal.getValue(row, col)) {
-                    heuristic++;
-                }
-            }
-        }
-
-        return  heuristic;
-    }
-
-    // Computes the total manhattan distance for all out of place tiles.
-    private int manhattanHeuristic() {
-        int heuristic = 0;
-        int numTiles = puzzle.getDimensions() * puzzle.getDimensions();
-
-        for (int val = 1; val < numTiles; val++) {
-            Point curPoint = puzzle.getPoint(val);
-            Point goalPoint = goal.getPoint(val);
-
-            heuristic += Math.abs(curPoint.getX() - goalPoint.getX());
-            heuristic += Math.abs(curPoint.getY() - goalPoint.getY());
-        }
-
-        return heuristic;
-    }
-
+    // Converts the packed board back into a Puzzle. This allocates, so it is meant for printing, not searching.
     public Puzzle getPuzzle() {
-        return puzzle;
+        return new Puzzle(board, context.getDimensions());
     }
 
-    public Point getEmptySpace() {
-        return emptySpace;
+    // Returns the packed board, or the low long of a wide board.
+    public long getBoard() {
+        return board;
     }
 
-    public int getValue(Point point) {
-        return puzzle.getValue((int)point.getX(), (int)point.getY());
+    public int getEmptySpace() {
+        return emptySpace;
     }
 
-    public void setValue(Point point, int val) {
-        puzzle.setValue((int)point.getX(), (int)point.getY(), val);
+    public int getValue(int position) {
+        return PackedBoard.getValue(board, position);
     }
 
     public int getValue(int row, int col) {
-        return getValue(new Point(row, col));
+        return getValue(row * context.getDimensions() + col);
     }
 
     public Node getParent() {
@@ -220,23 +195,11 @@ public class Node {
     }
 
     public boolean isGoal() {
-        return Arrays.deepEquals(puzzle.getGrid(), goal.getGrid());
-    }
-
-    public static void setGoal(Path fileName) {
-        goal = new Puzzle(fileName);
-    }
-
-    public static void setHeuristicType(int type) {
-        heuristicType = type;
-    }
-
-    public static double getWeight() {
-        return weight;
+        return board == context.getGoal();
     }
 
-    public static void setWeight(double inputWeight) {
-        weight = inputWeight;
+    public SearchContext getContext() {
+        return context;
     }
 
     @Override
@@ -245,8 +208,9 @@ public class Node {
                 "\nfPrimeValue = " + fPrimeValue +
                 "\ngValue = " + gValue +
                 "\nheuristic = " + heuristic +
-                "\nemptySpace = (" + (int)emptySpace.getX() + ", " + (int)emptySpace.getY() + ")" +
-                "\npuzzle =\n" + puzzle;
+                "\nemptySpace = (" + emptySpace / context.getDimensions() + ", " +
+                emptySpace % context.getDimensions() + ")" +
+                "\npuzzle =\n" + getPuzzle();
     }
 
     @Override
@@ -261,13 +225,11 @@ public class Node {
 
         Node node = (Node)obj;
 
-        return puzzle.equals(node.puzzle);
+        return board == node.board;
     }
 
     @Override
     public int hashCode() {
-        int result = 17;
-        result = 31 * result + puzzle.hashCode();
-        return result;
+        return Long.hashCode(board);
     }
 }
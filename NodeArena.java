@@ -0,0 +1,127 @@
+import java.util.Arrays;
+
+// Stores search nodes as rows of parallel primitive arrays instead of as Node objects. A node is an int index into
+// the arena, and each row holds its packed board, g value, heuristic, the index of its parent, and the position the
+// empty space moved to to reach it. A row takes 16 bytes and nothing the garbage collector has to trace, where a Node
+// takes over 50 bytes plus a reference from wherever it is kept.
+//
+// The arrays grow a chunk at a time, so growing never copies the rows already stored, only the small arrays of chunk
+// references. Rows are never removed; a search that is done with the arena simply drops it. Paths are followed
+// through parent indices, and only the solution is turned back into a chain of Nodes.
+public class NodeArena {
+
+    // Index of the parent of the root.
+    public static final int NO_PARENT = -1;
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private long[][] boards;
+    private short[][] gValues;
+    private byte[][] heuristics;
+    private int[][] parents;
+    private byte[][] emptySpaces;
+    private int size;
+
+    public NodeArena() {
+        boards = new long[1][];
+        gValues = new short[1][];
+        heuristics = new byte[1][];
+        parents = new int[1][];
+        emptySpaces = new byte[1][];
+        size = 0;
+    }
+
+    // Stores a node and returns its index. The heuristic has to fit in a byte and g in a short, which is far more
+    // than any packed board needs.
+    public int add(long board, int emptySpace, int gValue, int heuristic, int parent) {
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Node Arena Full");
+        }
+
+        int chunk = size >>> CHUNK_BITS;
+        int row = size & CHUNK_MASK;
+
+        if (row == 0) {
+            grow(chunk);
+        }
+
+        boards[chunk][row] = board;
+        gValues[chunk][row] = (short)gValue;
+        heuristics[chunk][row] = (byte)heuristic;
+        parents[chunk][row] = parent;
+        emptySpaces[chunk][row] = (byte)emptySpace;
+
+        return size++;
+    }
+
+    // Allocates the chunk, first making room for more chunk references if they are full.
+    private void grow(int chunk) {
+        if (chunk == boards.length) {
+            int length = chunk * 2;
+            boards = Arrays.copyOf(boards, length);
+            gValues = Arrays.copyOf(gValues, length);
+            heuristics = Arrays.copyOf(heuristics, length);
+            parents = Arrays.copyOf(parents, length);
+            emptySpaces = Arrays.copyOf(emptySpaces, length);
+        }
+
+        boards[chunk] = new long[CHUNK_SIZE];
+        gValues[chunk] = new short[CHUNK_SIZE];
+        heuristics[chunk] = new byte[CHUNK_SIZE];
+        parents[chunk] = new int[CHUNK_SIZE];
+        emptySpaces[chunk] = new byte[CHUNK_SIZE];
+    }
+
+    public long getBoard(int index) {
+        return boards[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    public int getgValue(int index) {
+        return gValues[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    public int getHeuristic(int index) {
+        return heuristics[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    public int getfValue(int index) {
+        return getgValue(index) + getHeuristic(index);
+    }
+
+    public int getParent(int index) {
+        return parents[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    // The position of the empty space, which is also the position of the tile that moved to reach the node.
+    public int getEmptySpace(int index) {
+        return emptySpaces[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    // Returns the positions the empty space moved to on the way from the root to the node, following parent indices.
+    public int[] path(int index) {
+        int[] moves = new int[getgValue(index)];
+
+        for (int cur = index; getParent(cur) != NO_PARENT; cur = getParent(cur)) {
+            moves[getgValue(cur) - 1] = getEmptySpace(cur);
+        }
+
+        return moves;
+    }
+
+    // Turns the path to the node into a chain of Nodes starting at the root, which has to be the Node the root of the
+    // arena was made from.
+    public Node toNode(int index, Node root) {
+        Node node = root;
+        for (int move : path(index)) {
+            node = node.getSuccessor(move);
+        }
+
+        return node;
+    }
+
+    public int size() {
+        return size;
+    }
+}
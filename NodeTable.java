@@ -0,0 +1,51 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// A table of Nodes keyed by their packed board. The board to slot mapping is a StateTable and the Nodes themselves
+// sit in a plain list, so a lookup never allocates. This is used for the incons list, whose Nodes have to be kept
+// because they are moved back into open later.
+public class NodeTable {
+
+    private final StateTable slots;
+    private final List<Node> nodes;
+
+    public NodeTable() {
+        slots = new StateTable();
+        nodes = new ArrayList<>();
+    }
+
+    // Returns the Node stored for the board or null if there isn't one.
+    public Node get(long board) {
+        int slot = slots.get(board);
+        return slot == StateTable.NOT_FOUND ? null : nodes.get(slot);
+    }
+
+    public boolean containsKey(long board) {
+        return slots.containsKey(board);
+    }
+
+    // Stores the Node, replacing any Node already stored for the same board.
+    public void put(Node node) {
+        int slot = slots.get(node.getBoard());
+
+        if (slot == StateTable.NOT_FOUND) {
+            slots.put(node.getBoard(), nodes.size());
+            nodes.add(node);
+        } else {
+            nodes.set(slot, node);
+        }
+    }
+
+    public List<Node> values() {
+        return nodes;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public void clear() {
+        slots.clear();
+        nodes.clear();
+    }
+}
@@ -0,0 +1,33 @@
+// The operations the searches need from an open list. Implementations decide the order nodes are polled in, so a
+// search picks the one that suits it when it calls setOpen().
+public interface OpenList extends Iterable<Node> {
+
+    void add(Node node);
+
+    // Removes and returns the best node, or returns null if the open list is empty.
+    Node poll();
+
+    // Returns the best node without removing it, or null if the open list is empty.
+    Node peek();
+
+    // Whether a node for the same board is in the open list.
+    boolean contains(Node node);
+
+    // Returns the node in the open list for the same board, or null if there isn't one.
+    Node get(Node node);
+
+    // Removes the node for the same board, returning whether there was one.
+    boolean remove(Node node);
+
+    // Replaces the node for the same board with this one, which usually has a better value.
+    default void update(Node node) {
+        remove(node);
+        add(node);
+    }
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+}
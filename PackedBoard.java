@@ -0,0 +1,61 @@
+// Helper methods for the packed board representation used by the searches. A board with at most 16 tiles is stored in
+// a single long where the tile at position p (row * dimensions + col) occupies the four bits starting at bit 4 * p.
+// Packed boards are plain values, so copying one is free and comparing or hashing two is a single long operation.
+final class PackedBoard {
+
+    // The largest number of tiles a single long can hold at four bits per tile.
+    public static final int MAX_TILES = 16;
+
+    private static final long TILE_MASK = 0xFL;
+    private static final long NIBBLE_ONES = 0x1111111111111111L;
+    private static final long NIBBLE_HIGH_BITS = 0x8888888888888888L;
+
+    private PackedBoard() {
+    }
+
+    // Returns the tile at the specified position.
+    public static int getValue(long board, int position) {
+        return (int)((board >>> (position << 2)) & TILE_MASK);
+    }
+
+    // Returns a copy of the board with the specified position set to the value.
+    public static long setValue(long board, int position, int val) {
+        int shift = position << 2;
+        return (board & ~(TILE_MASK << shift)) | ((long)val << shift);
+    }
+
+    // Returns a copy of the board with the tile at tilePosition slid into emptyPosition. Since the empty space is
+    // stored as 0, only the tile's nibble has to be moved.
+    public static long move(long board, int emptyPosition, int tilePosition) {
+        long tile = (board >>> (tilePosition << 2)) & TILE_MASK;
+        return (board & ~(TILE_MASK << (tilePosition << 2))) | (tile << (emptyPosition << 2));
+    }
+
+    // Returns the position of a value on the board, or -1 if the value isn't on it.
+    public static int getPosition(long board, int val, int numTiles) {
+        for (int position = 0; position < numTiles; position++) {
+            if (getValue(board, position) == val) {
+                return position;
+            }
+        }
+
+        return -1;
+    }
+
+    // Returns the position of a value that is on the board, without a loop. XORing every nibble with the value turns
+    // its nibble to 0, and subtracting 1 from every nibble sets the top bit of a zero nibble. Borrows can only set
+    // false top bits above a real zero, so the lowest one found is the value. Unused nibbles past the last position
+    // are 0, so the value must not be 0 on boards smaller than the 15 puzzle.
+    public static int findPosition(long board, int val) {
+        long x = board ^ (NIBBLE_ONES * val);
+        long zeros = (x - NIBBLE_ONES) & ~x & NIBBLE_HIGH_BITS;
+        return Long.numberOfTrailingZeros(zeros) >>> 2;
+    }
+
+    // Produces a mixed hash of the board. Packed boards of real puzzles differ mostly in their low bits, so this is
+    // used wherever a board has to be spread over a power of two sized table.
+    public static int hash(long board) {
+        long h = board * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+}
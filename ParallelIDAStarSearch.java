@@ -0,0 +1,183 @@
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Implements a parallel version of the Iterative Deepening A* search algorithm. The root is expanded breadth first
+// until there are enough nodes to keep every thread busy, and for each threshold the subtrees below those nodes are
+// searched in a ForkJoinPool, whose work stealing keeps threads busy when some subtrees are much bigger than others.
+// The workers share the smallest f value that exceeded the threshold and stop as soon as any of them finds a goal.
+public class ParallelIDAStarSearch extends Search {
+
+    // How many subtrees to aim for per thread. More subtrees balance better but repeat more work near the root.
+    private static final int SUBTREES_PER_THREAD = 64;
+
+    // Subtrees are handed out in ranges, and a range this small is searched without splitting it further.
+    private static final int MIN_SPLIT = 4;
+
+    private Node root;
+
+    private int threshold;
+    private int threads;
+
+    private List<Node> frontier;
+    private final AtomicInteger nextThreshold;
+    private final AtomicReference<Node> solution;
+    private final LongAdder expanded;
+
+    // Parallel IDA* requires files containing the 15 puzzle to be solved, what the solved state looks like, what
+    // heuristic to use, and how many threads to search with.
+    public ParallelIDAStarSearch(Path fileName, Path goal, int heuristicType, int threads) {
+        this(new SearchContext(new Puzzle(goal), heuristicType), new Puzzle(fileName), threads);
+    }
+
+    // Solves the puzzle for the goal and heuristic in the context with the specified number of threads.
+    public ParallelIDAStarSearch(SearchContext context, Puzzle start, int threads) {
+        super(context);
+
+        root = Node.create(start, context);
+        threshold = root.getfValue();
+        this.threads = threads;
+
+        nextThreshold = new AtomicInteger();
+        solution = new AtomicReference<>();
+        expanded = new LongAdder();
+    }
+
+    // Splits the search into subtrees, then searches them all in parallel for each threshold until a goal is found.
+    // Every path with an f value below the threshold was searched by an earlier iteration, so whichever worker finds
+    // a goal first has found an optimal solution.
+    @Override
+    public Node search() {
+        long startTime = startClock();
+
+        Node found = buildFrontier(threads * SUBTREES_PER_THREAD);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            int iteration = 0;
+            while (found == null) {
+                SearchEvents.IterationEvent event = SearchEvents.beginIteration();
+                long startExpanded = expanded.sum();
+                iteration++;
+                setBound(threshold);
+
+                nextThreshold.set(Integer.MAX_VALUE);
+                pool.invoke(new SubtreeTask(0, frontier.size()));
+
+                SearchEvents.endIteration(event, this, iteration, threshold, expanded.sum() - startExpanded);
+                sample(expanded.sum());
+
+                if (isCancelled()) {
+                    addNumExpanded(expanded.sum());
+                    checkCancelled();
+                }
+
+                found = solution.get();
+                if (found == null && nextThreshold.get() == Integer.MAX_VALUE) {
+                    throw new RuntimeException("ERROR: No solution found");
+                }
+
+                threshold = nextThreshold.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        addNumExpanded(expanded.sum());
+
+        long endTime = System.nanoTime();
+        setRunTime(startTime, endTime);
+
+        return found;
+    }
+
+    // Expands the root one level at a time until the frontier holds at least the requested number of nodes. Moves
+    // straight back to a node's parent are skipped like they are in the depth first search. If a goal turns up along
+    // the way it is returned, and since levels are expanded in order of depth it is an optimal solution.
+    private Node buildFrontier(int size) {
+        frontier = new ArrayList<>();
+        frontier.add(root);
+
+        if (root.isGoal()) {
+            return root;
+        }
+
+        while (frontier.size() < size) {
+            List<Node> next = new ArrayList<>();
+
+            for (Node node : frontier) {
+                expanded.increment();
+
+                for (Node successor : node.getSuccessors()) {
+                    if (node.getParent() != null && successor.equals(node.getParent())) {
+                        continue;
+                    }
+
+                    if (successor.isGoal()) {
+                        return successor;
+                    }
+
+                    next.add(successor);
+                }
+            }
+
+            frontier = next;
+        }
+
+        return null;
+    }
+
+    // Searches a range of the frontier's subtrees at the current threshold, splitting the range in half until it is
+    // small enough so that idle threads can steal the other half.
+    private class SubtreeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int start;
+        private final int end;
+
+        private SubtreeTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > MIN_SPLIT) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new SubtreeTask(start, middle), new SubtreeTask(middle, end));
+                return;
+            }
+
+            for (int i = start; i < end && solution.get() == null && !isCancelled(); i++) {
+                Node subtree = frontier.get(i);
+
+                IDAStarWorker worker = new IDAStarWorker(subtree);
+                int result = worker.search(threshold, () -> solution.get() != null || isCancelled());
+                expanded.add(worker.getNumExpanded());
+
+                if (result == IDAStarWorker.FOUND) {
+                    solution.compareAndSet(null, worker.getSolution(subtree));
+                } else {
+                    nextThreshold.accumulateAndGet(result, Math::min);
+                }
+            }
+        }
+    }
+
+    // Neither of these inherited functions need to be used. It's bad style but necessary for the Driver to be written
+    // elegantly.
+    @Override
+    protected void processSuccessor(Node node) {
+    }
+
+    @Override
+    protected boolean terminate() {
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+// Ranks permutations of 0 to n - 1 into the numbers 0 to n! - 1 and back in linear time, following Myrvold and
+// Ruskey, "Ranking and Unranking Permutations in Linear Time". The ranks are dense, so they can index a table with one
+// entry per permutation, but they are not in lexicographic order.
+//
+// A board is a permutation when each position holds the tile on it, which is how the distance table ranks boards.
+final class PermutationRank {
+
+    private PermutationRank() {
+    }
+
+    // Returns the rank of the permutation. Nothing is allocated: both arrays are the caller's, the permutation is
+    // scrambled in the process, and the inverse only has to be as long as the permutation.
+    public static int rank(int[] permutation, int[] inverse) {
+        int n = permutation.length;
+        for (int i = 0; i < n; i++) {
+            inverse[permutation[i]] = i;
+        }
+
+        // Moves the value n - 1 to the end, records where it was, and ranks what's left the same way.
+        int rank = 0;
+        int multiplier = 1;
+        for (int size = n; size > 1; size--) {
+            int s = permutation[size - 1];
+
+            swap(permutation, size - 1, inverse[size - 1]);
+            swap(inverse, s, size - 1);
+
+            rank += s * multiplier;
+            multiplier *= size;
+        }
+
+        return rank;
+    }
+
+    // Writes the permutation with the rank into the array, whose length is the size of the permutation.
+    public static void unrank(int rank, int[] permutation) {
+        int n = permutation.length;
+        for (int i = 0; i < n; i++) {
+            permutation[i] = i;
+        }
+
+        for (int size = n; size > 0; size--) {
+            swap(permutation, size - 1, rank % size);
+            rank /= size;
+        }
+    }
+
+    // The number of permutations of n values.
+    public static int count(int n) {
+        int count = 1;
+        for (int i = 2; i <= n; i++) {
+            count *= i;
+        }
+
+        return count;
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
+    }
+}
@@ -0,0 +1,64 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Adds up the nanoseconds a search spends in each phase of its work. Timing is off unless it is enabled, and while it
+// is off start() and stop() do nothing but check a flag. While it is on every timed call reads the clock twice, which
+// is a noticeable share of an expansion, so the times are for finding where a search spends its time rather than for
+// measuring how fast it is. The phases can be added to from several threads at once.
+public class PhaseTimer {
+
+    // Generating a node's successors, including computing their heuristics.
+    public static final int EXPANSION = 0;
+    // Computing heuristic values. This is also counted in EXPANSION.
+    public static final int HEURISTIC = 1;
+    // Checking successors against open and closed and adding them to open.
+    public static final int DUPLICATE_DETECTION = 2;
+
+    private static final String[] NAMES = {"Expansion", "Heuristic", "Duplicate detection"};
+
+    private final AtomicLongArray nanos;
+    // Only changed before a search starts, so it doesn't need to be volatile, and leaving it plain lets the JIT hoist
+    // the check out of the searches' loops.
+    private boolean enabled;
+
+    public PhaseTimer() {
+        nanos = new AtomicLongArray(NAMES.length);
+        enabled = false;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Returns the time to pass to stop() at the end of the phase.
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void stop(int phase, long startTime) {
+        if (enabled) {
+            nanos.addAndGet(phase, System.nanoTime() - startTime);
+        }
+    }
+
+    public long getNanos(int phase) {
+        return nanos.get(phase);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < NAMES.length; i++) {
+            sb.append(String.format("%s time: %.3f seconds", NAMES[i], getNanos(i) / 1e9));
+            if (i < NAMES.length - 1) {
+                sb.append('\n');
+            }
+        }
+
+        return sb.toString();
+    }
+}
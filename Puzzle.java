@@ -33,6 +33,43 @@ public class Puzzle {
         }
     }
 
+    // Creates a new Puzzle from a matrix, which has to be square.
+    public Puzzle(int[][] grid) {
+        dimensions = grid.length;
+        for (int[] row : grid) {
+            if (row.length != dimensions) {
+                throw new IllegalArgumentException("Not Square Matrix");
+            }
+        }
+
+        this.grid = arrayCopy(grid);
+    }
+
+    // Creates a new Puzzle from a packed board. This is used to turn the searches' packed states back into a matrix
+    // for printing.
+    public Puzzle(long board, int dimensions) {
+        this.dimensions = dimensions;
+        grid = new int[dimensions][dimensions];
+
+        for (int row = 0; row < dimensions; row++) {
+            for (int col = 0; col < dimensions; col++) {
+                grid[row][col] = PackedBoard.getValue(board, row * dimensions + col);
+            }
+        }
+    }
+
+    // Creates a new Puzzle from a wide packed board, for printing the states of boards with more than 16 tiles.
+    public Puzzle(long low, long high, int dimensions) {
+        this.dimensions = dimensions;
+        grid = new int[dimensions][dimensions];
+
+        for (int row = 0; row < dimensions; row++) {
+            for (int col = 0; col < dimensions; col++) {
+                grid[row][col] = WideBoard.getValue(low, high, row * dimensions + col);
+            }
+        }
+    }
+
     // Helper method to copy arrays because two dimensional arrays have trouble being copied.
     private int[][] arrayCopy(int[][] arr) {
         int[][] ret = new int[dimensions][dimensions];
@@ -119,6 +156,53 @@ public class Puzzle {
         return getValue((int)space.getX(), (int)space.getY());
     }
 
+    // Packs the Puzzle into a single long, four bits per tile in row major order. Only boards with at most 16 tiles
+    // fit, so anything larger throws an exception.
+    public long pack() {
+        if (dimensions * dimensions > PackedBoard.MAX_TILES) {
+            throw new IllegalArgumentException("Puzzle Too Large To Pack");
+        }
+
+        long board = 0;
+        for (int row = 0; row < dimensions; row++) {
+            for (int col = 0; col < dimensions; col++) {
+                board = PackedBoard.setValue(board, row * dimensions + col, grid[row][col]);
+            }
+        }
+
+        return board;
+    }
+
+    // Packs the Puzzle into two longs, five bits per tile in row major order, and returns the low long. Boards with at
+    // most 25 tiles fit, so anything larger throws an exception.
+    public long packLow() {
+        long low = 0;
+        for (int position = 0; position < checkWide(); position++) {
+            low = WideBoard.setLow(low, position, grid[position / dimensions][position % dimensions]);
+        }
+
+        return low;
+    }
+
+    // Returns the high long of the wide packed board.
+    public long packHigh() {
+        long high = 0;
+        for (int position = 0; position < checkWide(); position++) {
+            high = WideBoard.setHigh(high, position, grid[position / dimensions][position % dimensions]);
+        }
+
+        return high;
+    }
+
+    // Returns the number of tiles if the Puzzle fits in a wide packed board.
+    private int checkWide() {
+        if (dimensions * dimensions > WideBoard.MAX_TILES) {
+            throw new IllegalArgumentException("Puzzle Too Large To Pack");
+        }
+
+        return dimensions * dimensions;
+    }
+
     public int[][] getGrid() {
         return grid;
     }
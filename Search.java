@@ -1,31 +1,68 @@
 import java.util.*;
+import java.util.concurrent.Flow;
 
 // The class all the other search algorithms derive from. It includes the open, closed, and incons lists and getter and
 // setter methods for them. It also includes functions used to measure statistics and three methods each algorithm
-// needs to implement. These are the search(), processSuccessor(), and terminate() methods.
+// needs to implement. These are the search(), processSuccessor(), and terminate() methods. Each search owns a
+// SearchContext holding its goal, heuristic, weight, and incumbent, so searches don't share any state.
+//
+// While a search runs it samples its progress every few thousand expansions: the sample is recorded as a JFR event,
+// and if a progress interval was set, a progress line is printed to standard error whenever the interval has passed.
+//
+// The anytime searches can be given a budget of time and expanded nodes. Once it runs out they return the best
+// solution found so far instead of carrying on to an optimal one, and every better solution is published to the
+// subscribers of getIncumbentPublisher() as soon as it is found.
 abstract class Search {
 
-    protected static Node incumbent = null;
+    // How many expansions pass between progress samples. Must be a power of two.
+    private static final int SAMPLE_INTERVAL = 1 << 12;
 
-    private PriorityQueue<Node> open;
-    private Map<Puzzle, Node> incons;
-    private Map<Puzzle, Node> closed;
+    private final SearchContext context;
+
+    private OpenList open;
+
+    private NodeTable incons;
+    private StateTable closed;
 
     private int sizeOpen;
     private int sizeClosed;
     private int maxIncons;
     private int maxOpenClosed;
     private int numMoved;
+    private long numExpanded;
     private double runTime;
 
-    // Default constructor sets all statistics to 0.
-    public Search() {
+    private volatile boolean cancelled;
+
+    private double timeBudget;
+    private long expansionBudget;
+    private long deadline;
+    private boolean budgetExhausted;
+    private double suboptimalityBound;
+
+    private long startTime;
+    private int bound;
+    private long progressInterval;
+    private long nextProgress;
+    private long lastProgressExpanded;
+
+    // Sets all statistics to 0.
+    public Search(SearchContext context) {
+        this.context = context;
         sizeOpen = 0;
         sizeClosed = 0;
         maxIncons = 0;
         maxOpenClosed = 0;
         numMoved = 0;
+        numExpanded = 0;
         runTime = 0;
+        cancelled = false;
+        timeBudget = 0;
+        expansionBudget = 0;
+        budgetExhausted = false;
+        suboptimalityBound = 1;
+        bound = 0;
+        progressInterval = 0;
     }
 
     // The main search algorithm. Contains the logic.
@@ -37,28 +74,37 @@ abstract class Search {
     // Determines when to stop searching.
     protected abstract boolean terminate();
 
-    // Acts as a 'get' method for open. This is needed to compare the f and f' values of nodes found in open.
-    protected Node getFromOpen(Node node) {
-        Iterator it = open.iterator();
-        while (it.hasNext()) {
-            Node test = (Node)it.next();
+    // Generates the node's successors, timed as the expansion phase.
+    protected List<Node> expand(Node node) {
+        PhaseTimer timer = getPhaseTimer();
+        long phaseStart = timer.start();
 
-            if (test.equals(node)) {
-                return test;
-            }
-        }
+        List<Node> successors = node.getSuccessors();
 
-        return node;
+        timer.stop(PhaseTimer.EXPANSION, phaseStart);
+        return successors;
     }
 
-    // Makes the 'get' method for open, closed, and incons similar.
-    protected Node getFromClosed(Node node) {
-        return closed.get(node.getPuzzle());
+    // Acts as a 'get' method for open. This is needed to compare the f and f' values of nodes found in open.
+    protected Node getFromOpen(Node node) {
+        Node test = open.get(node);
+        return test == null ? node : test;
     }
 
-    // Makes the 'get' method for open, closed, and incons similar.
+    // Closed only remembers the g value a state was expanded with. Two nodes for the same state have the same
+    // heuristic, so comparing g values is the same as comparing their f or f' values.
+    protected int getClosedgValue(Node node) {
+        return closed.get(node.getBoard());
+    }
+
+    // Makes the 'get' method for open and incons similar.
     protected Node getFromIncons(Node node) {
-        return incons.get(node.getPuzzle());
+        return incons.get(node.getBoard());
+    }
+
+    // Creates an empty closed list, kept off the heap if the context asks for it.
+    protected StateTable newClosed() {
+        return new StateTable(context.isOffHeapTables());
     }
 
     public void printSolution(Node solution) {
@@ -79,27 +125,27 @@ abstract class Search {
         return 1 + lengthSolution(solution.getParent());
     }
 
-    protected void setOpen(PriorityQueue<Node> open) {
+    protected void setOpen(OpenList open) {
         this.open = open;
     }
 
-    protected PriorityQueue<Node> getOpen() {
+    protected OpenList getOpen() {
         return open;
     }
 
-    protected void setClosed(Map<Puzzle, Node> closed) {
+    protected void setClosed(StateTable closed) {
         this.closed = closed;
     }
 
-    protected Map<Puzzle, Node> getClosed() {
+    protected StateTable getClosed() {
         return closed;
     }
 
-    protected void setIncons(Map<Puzzle, Node> incons) {
+    protected void setIncons(NodeTable incons) {
         this.incons = incons;
     }
 
-    protected Map<Puzzle, Node> getIncons() {
+    protected NodeTable getIncons() {
         return incons;
     }
 
@@ -117,6 +163,10 @@ abstract class Search {
 
     protected void incrementSizeClosed() {
         sizeClosed++;
+
+        if ((++numExpanded & (SAMPLE_INTERVAL - 1)) == 0) {
+            sample(numExpanded);
+        }
     }
 
     public int getMaxIncons() {
@@ -135,7 +185,11 @@ abstract class Search {
     }
 
     protected void setMaxOpenClosed() {
-        int cur = getOpen().size() + getClosed().size();
+        setMaxOpenClosed(getOpen().size() + getClosed().size());
+    }
+
+    // For searches that don't keep their lists in open and closed, such as the parallel ones.
+    protected void setMaxOpenClosed(int cur) {
         if (cur > maxOpenClosed) {
             maxOpenClosed = cur;
         }
@@ -156,23 +210,182 @@ abstract class Search {
         numMoved++;
     }
 
+    // Counts every node whose successors were generated, including nodes expanded again in later iterations.
+    public long getNumExpanded() {
+        return numExpanded;
+    }
+
+    protected void addNumExpanded(long expanded) {
+        numExpanded += expanded;
+    }
+
+    // Returns how long the search took in seconds.
     public double getRunTime() {
         return runTime;
     }
 
+    // Starts timing the search and returns the start time to pass to setRunTime(). Times are from System.nanoTime().
+    protected long startClock() {
+        startTime = System.nanoTime();
+        deadline = timeBudget > 0 ? startTime + (long)(timeBudget * 1e9) : 0;
+        nextProgress = startTime + progressInterval;
+        lastProgressExpanded = 0;
+        return startTime;
+    }
+
     protected void setRunTime(long startTime, long endTime) {
-        runTime = (endTime - startTime) / 1000.0;
+        runTime = (endTime - startTime) / 1e9;
+    }
+
+    // Remembers the f value the search is currently working at, for progress samples.
+    protected void setBound(int bound) {
+        this.bound = bound;
+    }
+
+    // Prints a progress line to standard error every interval while the search runs. An interval of 0 turns progress
+    // lines off, which is the default.
+    public void setProgressInterval(double seconds) {
+        progressInterval = (long)(seconds * 1e9);
+    }
+
+    // Records a sample of how the search is going. The searches that keep their own count of expanded nodes call this
+    // themselves, everything else is sampled from incrementSizeClosed().
+    protected void sample(long expanded) {
+        int openSize = open == null ? 0 : open.size();
+        int closedSize = closed == null ? 0 : closed.size();
+
+        SearchEvents.openListSample(this, openSize, closedSize, bound, expanded);
+
+        if (progressInterval == 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (now < nextProgress) {
+            return;
+        }
+
+        double rate = (expanded - lastProgressExpanded) / ((now - nextProgress + progressInterval) / 1e9);
+        System.err.println(String.format("%s: %.1f seconds, %d expanded, %.0f nodes/second, open %d, closed %d, " +
+                "f bound %d", getClass().getSimpleName(), (now - startTime) / 1e9, expanded, rate, openSize,
+                closedSize, bound));
+
+        lastProgressExpanded = expanded;
+        nextProgress = now + progressInterval;
+    }
+
+    // Times the phases of the search. It is part of the context so Nodes can time their heuristic too.
+    public PhaseTimer getPhaseTimer() {
+        return context.getPhaseTimer();
+    }
+
+    // Asks the search to stop. It can be called from any thread, and the search then throws a SearchCancelledException
+    // out of search() the next time it checks, which is at least once per node expanded. The statistics gathered so
+    // far are left in place.
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    protected void checkCancelled() {
+        if (cancelled) {
+            throw new SearchCancelledException();
+        }
+    }
+
+    // Limits how long the search may run and how many nodes it may expand, where 0 means no limit. Only Anytime WA*
+    // and ARA* use a budget. Once either limit is reached they stop and return the best solution found so far, or
+    // throw if they haven't found one yet.
+    public void setBudget(double seconds, long expansions) {
+        timeBudget = seconds;
+        expansionBudget = expansions;
+    }
+
+    // Returns whether the budget has run out, and remembers it if it has. Called once per expansion.
+    protected boolean checkBudget() {
+        if ((expansionBudget > 0 && numExpanded >= expansionBudget) ||
+                (deadline != 0 && System.nanoTime() >= deadline)) {
+            budgetExhausted = true;
+        }
+
+        return budgetExhausted;
+    }
+
+    // Returns whether the search stopped because its budget ran out.
+    public boolean isBudgetExhausted() {
+        return budgetExhausted;
+    }
+
+    // Returns how many times longer than an optimal solution the returned solution can be at most. This is 1 unless
+    // the search's budget ran out.
+    public double getSuboptimalityBound() {
+        return suboptimalityBound;
+    }
+
+    protected void setSuboptimalityBound(double suboptimalityBound) {
+        this.suboptimalityBound = suboptimalityBound;
+    }
+
+    // Returns the suboptimality bound of a solution given a lower bound on the length of an optimal solution.
+    protected static double suboptimality(Node solution, double lowerBound) {
+        return Math.max(1, solution.getgValue() / lowerBound);
     }
 
-    protected static Node getIncumbent() {
-        return incumbent;
+    // Publishes every better solution Anytime WA* or ARA* finds as it is found. The publisher is closed once the
+    // search returns, or closed with the exception the search threw. The other searches never publish anything.
+    public Flow.Publisher<Incumbent> getIncumbentPublisher() {
+        return context.getIncumbentPublisher();
     }
 
-    protected static void setIncumbent(Node newIncumbent) {
-        incumbent = newIncumbent;
+    // Working out the suboptimality bound of a new incumbent takes a pass over open, so it is only done when someone
+    // has subscribed.
+    protected boolean hasIncumbentSubscribers() {
+        return context.getIncumbentPublisher().hasSubscribers();
+    }
+
+    // Publishes the incumbent along with its suboptimality bound. A subscriber that falls behind misses incumbents
+    // instead of holding up the search.
+    protected void publishIncumbent(double lowerBound) {
+        Node incumbent = getIncumbent();
+        context.getIncumbentPublisher().offer(new Incumbent(incumbent, suboptimality(incumbent, lowerBound),
+                numExpanded, (System.nanoTime() - startTime) / 1e9), (subscriber, item) -> false);
+    }
+
+    // Tells subscribers there are no more incumbents coming, with the exception that ended the search if there was one.
+    protected void closeIncumbents(Throwable error) {
+        if (error == null) {
+            context.getIncumbentPublisher().close();
+        } else {
+            context.getIncumbentPublisher().closeExceptionally(error);
+        }
     }
 
-    protected static void clear() {
-        incumbent = null;
+    // Searches that keep tables of the boards they have seen key them by a single long, so only the searches that
+    // don't can solve boards with more than 16 tiles.
+    protected static void requirePackedBoards(SearchContext context) {
+        if (context.isWide()) {
+            throw new IllegalArgumentException("Only IDA* and parallel IDA* can solve boards with more than " +
+                    PackedBoard.MAX_TILES + " tiles");
+        }
+    }
+
+    public SearchContext getContext() {
+        return context;
+    }
+
+    protected Node getIncumbent() {
+        return context.getIncumbent();
+    }
+
+    // Records the new incumbent as a JFR event unless it is the placeholder node with infinite values.
+    protected void setIncumbent(Node newIncumbent) {
+        context.setIncumbent(newIncumbent);
+
+        if (newIncumbent.getgValue() != Integer.MAX_VALUE) {
+            SearchEvents.incumbent(this, newIncumbent.getgValue(), context.getWeight(), numExpanded);
+        }
     }
 }
@@ -0,0 +1,9 @@
+// Thrown out of search() when a search is cancelled before it finishes, for example because it ran out of time.
+public class SearchCancelledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SearchCancelledException() {
+        super("Search cancelled");
+    }
+}
@@ -0,0 +1,139 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.SubmissionPublisher;
+
+// Everything about a search that used to be shared through static fields: the goal, the heuristic, the weight, and the
+// incumbent solution, along with the timer for the search's phases. Each Search owns its own context and every Node
+// it creates points to it, so any number of searches with different goals and weights can run in the same JVM at the
+// same time. The Heuristic is immutable and can be shared between contexts, while the weight, incumbent, timer, the
+// publisher of incumbents, and whether closed lists are kept off the heap belong to a single search.
+public class SearchContext {
+
+    private final Heuristic heuristic;
+    private final long goal;
+    private final long goalHigh;
+    private final int dimensions;
+
+    // For each position on the board, the positions the empty space can move to from there. The order matches the
+    // order successors have always been generated in: up, left, right, down.
+    private final int[][] moves;
+
+    private final PhaseTimer phaseTimer;
+    private final SubmissionPublisher<Incumbent> incumbentPublisher;
+
+    private double weight;
+    private Node incumbent;
+    private boolean offHeapTables;
+
+    public SearchContext(Puzzle goal, int heuristicType) {
+        this(goal, heuristicType, 1);
+    }
+
+    public SearchContext(Puzzle goal, int heuristicType, double weight) {
+        this(new Heuristic(goal, heuristicType), weight);
+    }
+
+    public SearchContext(Heuristic heuristic, double weight) {
+        this.heuristic = heuristic;
+        this.weight = weight;
+        goal = heuristic.getGoal();
+        goalHigh = heuristic.getGoalHigh();
+        dimensions = heuristic.getDimensions();
+        moves = buildMoves(dimensions);
+        phaseTimer = new PhaseTimer();
+        incumbentPublisher = new SubmissionPublisher<>();
+        incumbent = null;
+        offHeapTables = false;
+    }
+
+    // Builds the table of legal moves for every position of the empty space on a board of the given size.
+    private static int[][] buildMoves(int dimensions) {
+        int[][] ret = new int[dimensions * dimensions][];
+
+        for (int row = 0; row < dimensions; row++) {
+            for (int col = 0; col < dimensions; col++) {
+                List<Integer> adjacent = new ArrayList<>();
+
+                if (row > 0) {
+                    adjacent.add((row - 1) * dimensions + col);
+                }
+
+                if (col > 0) {
+                    adjacent.add(row * dimensions + col - 1);
+                }
+
+                if (col < dimensions - 1) {
+                    adjacent.add(row * dimensions + col + 1);
+                }
+
+                if (row < dimensions - 1) {
+                    adjacent.add((row + 1) * dimensions + col);
+                }
+
+                ret[row * dimensions + col] = adjacent.stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+
+        return ret;
+    }
+
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+
+    public long getGoal() {
+        return goal;
+    }
+
+    public long getGoalHigh() {
+        return goalHigh;
+    }
+
+    // Returns whether the boards of this search are wide packed boards, which only WideNodes can hold.
+    public boolean isWide() {
+        return heuristic.isWide();
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    // Returns the legal moves of the empty space from each position. The table is shared, so it must not be changed.
+    int[][] getMoves() {
+        return moves;
+    }
+
+    public PhaseTimer getPhaseTimer() {
+        return phaseTimer;
+    }
+
+    SubmissionPublisher<Incumbent> getIncumbentPublisher() {
+        return incumbentPublisher;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+
+    public Node getIncumbent() {
+        return incumbent;
+    }
+
+    public void setIncumbent(Node incumbent) {
+        this.incumbent = incumbent;
+    }
+
+    // Whether the search keeps its closed lists off the heap. Searches create their closed lists when they are
+    // constructed, so this has to be set before the search is created.
+    public boolean isOffHeapTables() {
+        return offHeapTables;
+    }
+
+    public void setOffHeapTables(boolean offHeapTables) {
+        this.offHeapTables = offHeapTables;
+    }
+}
@@ -0,0 +1,144 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Java Flight Recorder events the searches emit. Start a recording with
+// java -XX:StartFlightRecording=filename=search.jfr ... (or later with jcmd <pid> JFR.start) and look at them with
+// jfr print --events puzzle.Iteration search.jfr or in JDK Mission Control. Creating the first event starts up JFR,
+// which takes a good fraction of a second, so the helpers below don't touch the event classes at all until the flight
+// recorder has been started.
+final class SearchEvents {
+
+    private SearchEvents() {
+    }
+
+    private static boolean recording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    // Returns an iteration event that has begun, or null if nothing is being recorded.
+    static IterationEvent beginIteration() {
+        if (!recording()) {
+            return null;
+        }
+
+        IterationEvent event = new IterationEvent();
+        event.begin();
+        return event;
+    }
+
+    // Ends an iteration event returned by beginIteration() and commits it.
+    static void endIteration(IterationEvent event, Search search, int iteration, double bound, long expanded) {
+        if (event == null) {
+            return;
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.search = search.getClass().getSimpleName();
+            event.iteration = iteration;
+            event.bound = bound;
+            event.expanded = expanded;
+            event.commit();
+        }
+    }
+
+    static void incumbent(Search search, int length, double weight, long expanded) {
+        if (!recording()) {
+            return;
+        }
+
+        IncumbentEvent event = new IncumbentEvent();
+        if (event.shouldCommit()) {
+            event.search = search.getClass().getSimpleName();
+            event.length = length;
+            event.weight = weight;
+            event.expanded = expanded;
+            event.commit();
+        }
+    }
+
+    static void openListSample(Search search, int openSize, int closedSize, int bound, long expanded) {
+        if (!recording()) {
+            return;
+        }
+
+        OpenListSampleEvent event = new OpenListSampleEvent();
+        if (event.shouldCommit()) {
+            event.search = search.getClass().getSimpleName();
+            event.openSize = openSize;
+            event.closedSize = closedSize;
+            event.bound = bound;
+            event.expanded = expanded;
+            event.commit();
+        }
+    }
+
+    // One iteration of an iterative search: a depth first search to one threshold for IDA*, or one call to
+    // improvePath() at one weight for ARA*. The event's duration covers the whole iteration.
+    @Name("puzzle.Iteration")
+    @Label("Iteration")
+    @Category("15 Puzzle")
+    static class IterationEvent extends Event {
+
+        @Label("Search")
+        String search;
+
+        @Label("Iteration")
+        int iteration;
+
+        @Label("Bound")
+        @Description("The f threshold for IDA*, or the weight for ARA*")
+        double bound;
+
+        @Label("Nodes Expanded")
+        @Description("Nodes expanded during this iteration")
+        long expanded;
+    }
+
+    // A better solution was found by an anytime search.
+    @Name("puzzle.Incumbent")
+    @Label("Incumbent")
+    @Category("15 Puzzle")
+    static class IncumbentEvent extends Event {
+
+        @Label("Search")
+        String search;
+
+        @Label("Solution Length")
+        int length;
+
+        @Label("Weight")
+        double weight;
+
+        @Label("Nodes Expanded")
+        @Description("Nodes expanded since the search started")
+        long expanded;
+    }
+
+    // A periodic sample of the size of the search's lists, taken every few thousand expansions.
+    @Name("puzzle.OpenListSample")
+    @Label("Open List Sample")
+    @Category("15 Puzzle")
+    static class OpenListSampleEvent extends Event {
+
+        @Label("Search")
+        String search;
+
+        @Label("Open Size")
+        int openSize;
+
+        @Label("Closed Size")
+        int closedSize;
+
+        @Label("f Bound")
+        int bound;
+
+        @Label("Nodes Expanded")
+        @Description("Nodes expanded since the search started")
+        long expanded;
+    }
+}
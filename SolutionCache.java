@@ -0,0 +1,196 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// A bounded cache of solutions, keyed by the packed start and goal boards, the search that was used, and whether that
+// search guarantees an optimal solution. A solution is stored as the positions the empty space moves to, one byte
+// each. When the cache is full the least recently used solution is dropped.
+//
+// Any optimal solution is as good as any other, so solutions from the optimal searches are shared between all of
+// them instead of being kept per search. Every state along an optimal path is also stored with the rest of the path
+// as its solution, since the rest of an optimal path is an optimal path from that state. Solutions from searches
+// that don't guarantee optimality are only stored for their start, and only handed back to the same search.
+//
+// The cache can be kept in a file so it survives restarts. It is read when the cache is created and written by save().
+public class SolutionCache {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final int MAGIC = 0x534f4c31;
+
+    private static final class Key {
+        private final long start;
+        private final long goal;
+        private final Driver.Decisions searchDecision;
+        private final boolean optimal;
+
+        // The search is only part of the key when it doesn't guarantee optimal solutions.
+        private Key(long start, long goal, Driver.Decisions searchDecision, boolean optimal) {
+            this.start = start;
+            this.goal = goal;
+            this.searchDecision = optimal ? null : searchDecision;
+            this.optimal = optimal;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key)obj;
+
+            return start == key.start && goal == key.goal && searchDecision == key.searchDecision &&
+                    optimal == key.optimal;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(start, goal, searchDecision, optimal);
+        }
+    }
+
+    private final int capacity;
+    private final Path file;
+    private final LinkedHashMap<Key, byte[]> solutions;
+
+    // Creates an empty cache that is only kept in memory.
+    public SolutionCache(int capacity) {
+        this.capacity = capacity;
+        file = null;
+        solutions = newLruMap();
+    }
+
+    // Creates a cache kept in the file, loading whatever the file already holds.
+    public SolutionCache(int capacity, Path file) throws IOException {
+        this.capacity = capacity;
+        this.file = file;
+        solutions = newLruMap();
+
+        if (Files.exists(file)) {
+            load();
+        }
+    }
+
+    // Keeps its entries in access order and drops the eldest, which is the least recently used one, once the cache is
+    // over capacity.
+    private LinkedHashMap<Key, byte[]> newLruMap() {
+        return new LinkedHashMap<Key, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // Returns whether the search always finds optimal solutions.
+    public static boolean isOptimal(Driver.Decisions searchDecision) {
+        return searchDecision != Driver.Decisions.ANYTIME_WA_STAR && searchDecision != Driver.Decisions.ARA_STAR;
+    }
+
+    // Returns the moves of the empty space that solve the start board, or null if no solution is cached for it.
+    public synchronized int[] get(long start, long goal, Driver.Decisions searchDecision) {
+        byte[] path = solutions.get(new Key(start, goal, searchDecision, isOptimal(searchDecision)));
+        if (path == null) {
+            return null;
+        }
+
+        int[] ret = new int[path.length];
+        for (int i = 0; i < path.length; i++) {
+            ret[i] = path[i];
+        }
+
+        return ret;
+    }
+
+    // Stores a solution the search found, along with every suffix of it if the search is optimal.
+    public synchronized void put(Driver.Decisions searchDecision, Node solution) {
+        List<Node> path = new ArrayList<>();
+        for (Node node = solution; node != null; node = node.getParent()) {
+            path.add(node);
+        }
+
+        // The path was collected from the goal back, so the moves are read off in reverse.
+        byte[] moves = new byte[path.size() - 1];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = (byte)path.get(path.size() - 2 - i).getEmptySpace();
+        }
+
+        long goal = solution.getContext().getGoal();
+        boolean optimal = isOptimal(searchDecision);
+        int states = optimal ? moves.length : 0;
+
+        for (int i = states; i >= 0; i--) {
+            long board = path.get(path.size() - 1 - i).getBoard();
+            solutions.put(new Key(board, goal, searchDecision, optimal), Arrays.copyOfRange(moves, i, moves.length));
+        }
+    }
+
+    public synchronized int size() {
+        return solutions.size();
+    }
+
+    // Writes the cache to its file, from the least to the most recently used solution so loading it keeps the order.
+    // The file is replaced all at once, so a crash while saving leaves the old file in place. Does nothing if the
+    // cache isn't kept in a file.
+    public synchronized void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(solutions.size());
+
+            for (Map.Entry<Key, byte[]> entry : solutions.entrySet()) {
+                Key key = entry.getKey();
+
+                out.writeLong(key.start);
+                out.writeLong(key.goal);
+                out.writeUTF(key.searchDecision == null ? "" : key.searchDecision.name());
+                out.writeBoolean(key.optimal);
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+        }
+
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a solution cache: " + file);
+            }
+
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                long start = in.readLong();
+                long goal = in.readLong();
+                String searchDecision = in.readUTF();
+                boolean optimal = in.readBoolean();
+                byte[] moves = new byte[in.readInt()];
+                in.readFully(moves);
+
+                solutions.put(new Key(start, goal,
+                        searchDecision.isEmpty() ? null : Driver.Decisions.valueOf(searchDecision), optimal), moves);
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+// An open addressing hash table from packed boards to ints, used for the closed and incons lists. Keys and values are
+// kept in two flat primitive arrays and collisions are resolved with linear probing, so an entry costs 12 bytes of
+// table space instead of a HashMap entry, a boxed Long, and a whole Node. The keys and values can optionally live
+// off-heap in direct buffers so very large closed lists don't count against the Java heap. Plain arrays are used
+// otherwise, since they are faster to index than buffers. Packed boards of real puzzles are never 0, which is what
+// marks an empty slot.
+public class StateTable {
+
+    // Value returned by get() and put() when the key isn't in the table.
+    public static final int NOT_FOUND = -1;
+
+    private static final long EMPTY = 0;
+    private static final int DEFAULT_CAPACITY = 1 << 10;
+    private static final int MAX_CAPACITY = 1 << 28;
+
+    // A direct buffer holds at most Integer.MAX_VALUE bytes, which the keys of a table this size just fit in.
+    private static final int MAX_OFF_HEAP_CAPACITY = 1 << 27;
+
+    private final boolean offHeap;
+
+    // Only one of each pair is used, the buffers if the table is off-heap and the arrays otherwise.
+    private long[] keys;
+    private int[] values;
+    private LongBuffer keyBuffer;
+    private IntBuffer valueBuffer;
+    private int mask;
+    private int size;
+
+    public StateTable() {
+        this(false);
+    }
+
+    public StateTable(boolean offHeap) {
+        this(DEFAULT_CAPACITY, offHeap);
+    }
+
+    // The capacity is rounded up to a power of two. If offHeap is true the table is stored in direct buffers.
+    public StateTable(int capacity, boolean offHeap) {
+        this.offHeap = offHeap;
+        allocate(tableSizeFor(capacity));
+    }
+
+    // Returns the value associated with the key or NOT_FOUND if there isn't one.
+    public int get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long cur = key(slot);
+
+            if (cur == key) {
+                return value(slot);
+            }
+
+            if (cur == EMPTY) {
+                return NOT_FOUND;
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != NOT_FOUND;
+    }
+
+    // Associates the value with the key and returns the previous value or NOT_FOUND if there wasn't one.
+    public int put(long key, int value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Empty Board Cannot Be A Key");
+        }
+
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long cur = key(slot);
+
+            if (cur == key) {
+                int old = value(slot);
+                setValue(slot, value);
+                return old;
+            }
+
+            if (cur == EMPTY) {
+                setKey(slot, key);
+                setValue(slot, value);
+                size++;
+
+                if (size * 10L >= (mask + 1) * 7L) {
+                    resize();
+                }
+
+                return NOT_FOUND;
+            }
+        }
+    }
+
+    // Removes the key and returns its value or NOT_FOUND if it wasn't in the table. Entries after the removed one are
+    // shifted back so that no probe sequence is broken, which means no tombstones are ever needed.
+    public int remove(long key) {
+        int slot = slot(key);
+        while (key(slot) != key) {
+            if (key(slot) == EMPTY) {
+                return NOT_FOUND;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        int old = value(slot);
+
+        int hole = slot;
+        for (int next = (hole + 1) & mask; key(next) != EMPTY; next = (next + 1) & mask) {
+            int home = slot(key(next));
+
+            // The entry at next can fill the hole only if its home slot isn't cyclically between the hole and next.
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                setKey(hole, key(next));
+                setValue(hole, value(next));
+                hole = next;
+            }
+        }
+
+        setKey(hole, EMPTY);
+        size--;
+
+        return old;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Removes every entry but keeps the current capacity.
+    public void clear() {
+        for (int slot = 0; slot <= mask; slot++) {
+            setKey(slot, EMPTY);
+        }
+
+        size = 0;
+    }
+
+    private int slot(long key) {
+        return PackedBoard.hash(key) & mask;
+    }
+
+    // Doubles the capacity and reinserts every entry.
+    private void resize() {
+        if (mask + 1 >= maxCapacity()) {
+            throw new IllegalStateException("State Table Full");
+        }
+
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        LongBuffer oldKeyBuffer = keyBuffer;
+        IntBuffer oldValueBuffer = valueBuffer;
+        int oldCapacity = mask + 1;
+
+        allocate(oldCapacity << 1);
+
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            long key = offHeap ? oldKeyBuffer.get(slot) : oldKeys[slot];
+
+            if (key != EMPTY) {
+                int newSlot = slot(key);
+                while (key(newSlot) != EMPTY) {
+                    newSlot = (newSlot + 1) & mask;
+                }
+
+                setKey(newSlot, key);
+                setValue(newSlot, offHeap ? oldValueBuffer.get(slot) : oldValues[slot]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        if (offHeap) {
+            keyBuffer = ByteBuffer.allocateDirect(Math.toIntExact((long)capacity * Long.BYTES))
+                    .order(ByteOrder.nativeOrder()).asLongBuffer();
+            valueBuffer = ByteBuffer.allocateDirect(Math.toIntExact((long)capacity * Integer.BYTES))
+                    .order(ByteOrder.nativeOrder()).asIntBuffer();
+        } else {
+            keys = new long[capacity];
+            values = new int[capacity];
+        }
+
+        mask = capacity - 1;
+    }
+
+    private long key(int slot) {
+        return offHeap ? keyBuffer.get(slot) : keys[slot];
+    }
+
+    private void setKey(int slot, long key) {
+        if (offHeap) {
+            keyBuffer.put(slot, key);
+        } else {
+            keys[slot] = key;
+        }
+    }
+
+    private int value(int slot) {
+        return offHeap ? valueBuffer.get(slot) : values[slot];
+    }
+
+    private void setValue(int slot, int value) {
+        if (offHeap) {
+            valueBuffer.put(slot, value);
+        } else {
+            values[slot] = value;
+        }
+    }
+
+    private int maxCapacity() {
+        return offHeap ? MAX_OFF_HEAP_CAPACITY : MAX_CAPACITY;
+    }
+
+    private int tableSizeFor(int capacity) {
+        int ret = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        return Math.min(ret, maxCapacity());
+    }
+}
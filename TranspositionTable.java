@@ -0,0 +1,96 @@
+// A fixed size, lossy table of the boards IDA* has already reached in the current iteration, and the lowest g value
+// each was reached with. Once a board has been reached, its whole subtree within the threshold is searched, so when
+// the same board is reached again with a g value that isn't lower, the second subtree can't hold anything the first
+// didn't and is skipped. Without the table every transposition is searched again, which in the 15 puzzle makes up
+// most of the nodes IDA* expands on deep instances.
+//
+// The table never grows past the memory it was given. Slots are grouped in pairs, and a board can only go in the pair
+// its hash picks. When both slots of the pair are taken, an entry left over from an earlier iteration is replaced
+// first, then the deeper of the two entries: a shallower board has a larger subtree, so it saves more when it prunes.
+// Forgetting a board only means its subtree may be searched again, so the search stays optimal however small the
+// table is. Each entry is tagged with the iteration it was written in, so starting a new iteration doesn't need to
+// clear the table. Packed boards of real puzzles are never 0, which is what marks an empty slot.
+public class TranspositionTable {
+
+    // An entry's value holds the iteration above these bits and the g value in them.
+    private static final int G_BITS = 10;
+    private static final int G_MASK = (1 << G_BITS) - 1;
+
+    private static final long EMPTY = 0;
+    private static final int ENTRY_BYTES = Long.BYTES + Integer.BYTES;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final long[] keys;
+    private final int[] values;
+    private final int mask;
+    private int iteration;
+    private long hits;
+
+    // Creates a table taking at most the specified number of bytes, which has to be enough for at least two entries.
+    public TranspositionTable(long bytes) {
+        long entries = bytes / ENTRY_BYTES;
+        if (entries < 2) {
+            throw new IllegalArgumentException("Transposition Table Too Small");
+        }
+
+        int capacity = (int)Long.highestOneBit(Math.min(entries, MAX_CAPACITY));
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        iteration = 1;
+        hits = 0;
+    }
+
+    // Starts a new iteration, after which none of the boards reached so far prune anything.
+    public void newIteration() {
+        iteration++;
+    }
+
+    // Returns true if the board was already reached with a g value no higher than this one in the current iteration,
+    // in which case its subtree doesn't need to be searched again. Otherwise remembers that the board was reached with
+    // this g value and returns false.
+    public boolean visit(long board, int gValue) {
+        int first = PackedBoard.hash(board) & mask & ~1;
+        int second = first + 1;
+        int value = (iteration << G_BITS) | gValue;
+
+        if (keys[first] == board || keys[second] == board) {
+            int slot = keys[first] == board ? first : second;
+
+            if (values[slot] >>> G_BITS == iteration && (values[slot] & G_MASK) <= gValue) {
+                hits++;
+                return true;
+            }
+
+            values[slot] = value;
+            return false;
+        }
+
+        int slot;
+        if (isFree(first)) {
+            slot = first;
+        } else if (isFree(second)) {
+            slot = second;
+        } else {
+            slot = (values[first] & G_MASK) >= (values[second] & G_MASK) ? first : second;
+        }
+
+        keys[slot] = board;
+        values[slot] = value;
+        return false;
+    }
+
+    // Whether the slot is empty or only holds an entry from an earlier iteration.
+    private boolean isFree(int slot) {
+        return keys[slot] == EMPTY || values[slot] >>> G_BITS != iteration;
+    }
+
+    // How many subtrees the table has pruned.
+    public long getHits() {
+        return hits;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+}
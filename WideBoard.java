@@ -0,0 +1,77 @@
+// Helper methods for the wide packed board representation used for boards with more than 16 tiles, up to the 24
+// puzzle. Five bits per tile are enough for 25 tiles, so a board is stored as 128 bits split over two longs: the tile
+// at position p occupies the five bits starting at bit 5 * p, where bits 0 to 63 are the low long and bits 64 to 127
+// the high one. The tile at position 12 straddles the two longs, with its low four bits in the low long and its top bit
+// in the high one. Like packed boards, wide boards are plain values, so nothing is allocated to copy or compare them.
+//
+// Since a method can't return two longs without allocating, setting a position is split into one method for each long.
+final class WideBoard {
+
+    // The largest number of tiles two longs can hold at five bits per tile.
+    public static final int MAX_TILES = 25;
+
+    private static final int BITS = 5;
+    private static final long TILE_MASK = 0x1FL;
+
+    private WideBoard() {
+    }
+
+    // Returns the tile at the specified position.
+    public static int getValue(long low, long high, int position) {
+        int shift = position * BITS;
+
+        long value;
+        if (shift < Long.SIZE) {
+            value = low >>> shift;
+            if (shift > Long.SIZE - BITS) {
+                value |= high << (Long.SIZE - shift);
+            }
+        } else {
+            value = high >>> (shift - Long.SIZE);
+        }
+
+        return (int)(value & TILE_MASK);
+    }
+
+    // Returns a copy of the low long with whatever part of the specified position it holds set to the value.
+    public static long setLow(long low, int position, int val) {
+        int shift = position * BITS;
+        if (shift >= Long.SIZE) {
+            return low;
+        }
+
+        // Shifting left drops any bits past the end of the low long, which belong to the high one.
+        return (low & ~(TILE_MASK << shift)) | ((long)val << shift);
+    }
+
+    // Returns a copy of the high long with whatever part of the specified position it holds set to the value.
+    public static long setHigh(long high, int position, int val) {
+        int shift = position * BITS - Long.SIZE;
+        if (shift >= 0) {
+            return (high & ~(TILE_MASK << shift)) | ((long)val << shift);
+        }
+
+        // Only the top bits of a tile straddling the two longs are in the high one.
+        if (shift > -BITS) {
+            return (high & ~(TILE_MASK >>> -shift)) | ((long)val >>> -shift);
+        }
+
+        return high;
+    }
+
+    // Returns the position of a value on the board, or -1 if the value isn't on it.
+    public static int getPosition(long low, long high, int val, int numTiles) {
+        for (int position = 0; position < numTiles; position++) {
+            if (getValue(low, high, position) == val) {
+                return position;
+            }
+        }
+
+        return -1;
+    }
+
+    // Produces a mixed hash of the board.
+    public static int hash(long low, long high) {
+        return PackedBoard.hash(low ^ Long.rotateLeft(high, 32) * 0xC2B2AE3D27D4EB4FL);
+    }
+}
@@ -0,0 +1,99 @@
+// A Node for boards with more than 16 tiles, up to the 24 puzzle. The board is a wide packed board held in two longs
+// (see WideBoard), and the single packed board every Node has is left unused. Keeping the second long out of Node means
+// the far more common 15 puzzle nodes don't get any bigger.
+//
+// Only searches that don't keep tables of boards use WideNodes, since those tables are keyed by a single long.
+public class WideNode extends Node {
+
+    private long low;
+    private long high;
+
+    // Creates a new WideNode from a Puzzle and calculates all the relevant values for the search the context belongs
+    // to.
+    public WideNode(Puzzle puzzle, SearchContext context) {
+        super(context, 0, startEmptySpace(puzzle), context.getHeuristic().evaluate(puzzle.packLow(),
+                puzzle.packHigh()));
+        checkDimensions(puzzle, context);
+
+        low = puzzle.packLow();
+        high = puzzle.packHigh();
+    }
+
+    // Creates a new WideNode copied from another WideNode.
+    public WideNode(WideNode node) {
+        super(node);
+
+        low = node.low;
+        high = node.high;
+    }
+
+    private static int startEmptySpace(Puzzle puzzle) {
+        int numTiles = puzzle.getDimensions() * puzzle.getDimensions();
+        return WideBoard.getPosition(puzzle.packLow(), puzzle.packHigh(), 0, numTiles);
+    }
+
+    @Override
+    protected Node copy() {
+        return new WideNode(this);
+    }
+
+    @Override
+    protected void makeMove(int move) {
+        int emptySpace = getEmptySpace();
+        int tile = getValue(move);
+
+        low = WideBoard.setLow(WideBoard.setLow(low, move, 0), emptySpace, tile);
+        high = WideBoard.setHigh(WideBoard.setHigh(high, move, 0), emptySpace, tile);
+        setEmptySpace(move);
+    }
+
+    @Override
+    protected int heuristicDelta(int tile, int move) {
+        return getContext().getHeuristic().delta(low, high, tile, move, getEmptySpace());
+    }
+
+    @Override
+    public Puzzle getPuzzle() {
+        return new Puzzle(low, high, getContext().getDimensions());
+    }
+
+    // Returns the low long of the board.
+    @Override
+    public long getBoard() {
+        return low;
+    }
+
+    public long getBoardHigh() {
+        return high;
+    }
+
+    @Override
+    public int getValue(int position) {
+        return WideBoard.getValue(low, high, position);
+    }
+
+    @Override
+    public boolean isGoal() {
+        return low == getContext().getGoal() && high == getContext().getGoalHigh();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+
+        if (!(obj instanceof WideNode)) {
+            return false;
+        }
+
+        WideNode node = (WideNode)obj;
+
+        return low == node.low && high == node.high;
+    }
+
+    @Override
+    public int hashCode() {
+        return WideBoard.hash(low, high);
+    }
+}
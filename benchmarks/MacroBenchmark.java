@@ -0,0 +1,460 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// End to end benchmarks. Runs searches over a fixed set of instances and records, for every search and instance, the
+// solution length, nodes expanded, nodes expanded per second, the peak size of open plus closed, and the wall time.
+// Each search gets a time limit and is cancelled when it runs out. The results are written as CSV or JSON (picked by
+// the output file's extension), and two result files can be diffed to flag regressions. Run it from the repository
+// root after javac -d out *.java benchmarks/*.java with one of
+//
+//     java -cp out MacroBenchmark run <instance file> <goal file> <result file> [seconds] [searches] [heuristic]
+//     java -cp out MacroBenchmark diff <baseline result file> <result file> [tolerance percent]
+//     java -cp out MacroBenchmark generate <random | walk> <count> <seed> [walk length]
+//
+// Instance files use the BatchSolver's format, one puzzle per line in row major order. Searches are the numbers from
+// the Driver's menu separated by commas, and only the single threaded ones (0 to 3 and 6 to 9) are allowed so results
+// don't depend on the machine's core count (the distance table, 9, only solves 3x3 puzzles). benchmarks/instances
+// holds Korf's 100 random instances (korf100.txt, for korf-goal.txt), so results can be compared with the
+// literature, and two sets for goal.txt made with generate.
+public class MacroBenchmark {
+
+    private static final long DEFAULT_SECONDS = 60;
+    private static final String DEFAULT_SEARCHES = "0,1,2,3";
+    private static final double DEFAULT_TOLERANCE = 10;
+
+    // Runs faster than this are mostly timer noise and JIT warmup, so their times aren't compared.
+    private static final double MIN_COMPARED_SECONDS = 0.1;
+
+    // Weighted searches are run with the same weights every time so their results stay comparable.
+    private static final double WEIGHT = 2;
+    private static final double ARA_WEIGHT = 3;
+    private static final double ARA_WEIGHT_DECREASE = 0.5;
+
+    // Status of a run.
+    private static final String SOLVED = "solved";
+    private static final String TIMEOUT = "timeout";
+    private static final String OUT_OF_MEMORY = "out of memory";
+    private static final String ERROR = "error";
+
+    private static final String[] COLUMNS = {"search", "instance", "status", "length", "expanded", "nodes_per_second",
+            "max_open_closed", "seconds"};
+
+    // One search run on one instance. Length is -1 unless the search finished.
+    private static class Result {
+        private String search;
+        private int instance;
+        private String status;
+        private int length = -1;
+        private long expanded;
+        private double nodesPerSecond;
+        private int maxOpenClosed;
+        private double seconds;
+
+        private String key() {
+            return search + " #" + instance;
+        }
+
+        private String[] values() {
+            return new String[] {search, Integer.toString(instance), status, Integer.toString(length),
+                    Long.toString(expanded), String.format(Locale.ROOT, "%.0f", nodesPerSecond),
+                    Integer.toString(maxOpenClosed), String.format(Locale.ROOT, "%.3f", seconds)};
+        }
+
+        private static Result fromValues(Map<String, String> values) {
+            Result ret = new Result();
+            ret.search = values.get("search");
+            ret.instance = Integer.parseInt(values.get("instance"));
+            ret.status = values.get("status");
+            ret.length = Integer.parseInt(values.get("length"));
+            ret.expanded = Long.parseLong(values.get("expanded"));
+            ret.nodesPerSecond = Double.parseDouble(values.get("nodes_per_second"));
+            ret.maxOpenClosed = Integer.parseInt(values.get("max_open_closed"));
+            ret.seconds = Double.parseDouble(values.get("seconds"));
+            return ret;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 4 && args[0].equals("run")) {
+            long seconds = args.length > 4 ? Long.parseLong(args[4]) : DEFAULT_SECONDS;
+            String searches = args.length > 5 ? args[5] : DEFAULT_SEARCHES;
+            int heuristicType = args.length > 6 ? Integer.parseInt(args[6]) : Node.MANHATTAN_HEURISTIC;
+
+            List<Result> results = run(Paths.get(args[1]), Paths.get(args[2]), seconds, searches, heuristicType);
+            write(results, Paths.get(args[3]));
+        } else if (args.length >= 3 && args[0].equals("diff")) {
+            double tolerance = args.length > 3 ? Double.parseDouble(args[3]) : DEFAULT_TOLERANCE;
+
+            if (diff(read(Paths.get(args[1])), read(Paths.get(args[2])), tolerance)) {
+                System.exit(1);
+            }
+        } else if (args.length >= 4 && args[0].equals("generate")) {
+            int walkLength = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+            generate(args[1], Integer.parseInt(args[2]), Long.parseLong(args[3]), walkLength);
+        } else {
+            System.err.println("Usage: java MacroBenchmark run <instance file> <goal file> <result file> [seconds] " +
+                    "[searches] [heuristic]");
+            System.err.println("       java MacroBenchmark diff <baseline result file> <result file> " +
+                    "[tolerance percent]");
+            System.err.println("       java MacroBenchmark generate <random | walk> <count> <seed> [walk length]");
+        }
+    }
+
+    // Runs every search on every instance, one at a time, printing each result as it finishes.
+    private static List<Result> run(Path instances, Path goal, long seconds, String searches, int heuristicType)
+            throws IOException, InterruptedException {
+        List<Puzzle> puzzles = new ArrayList<>();
+        for (String line : Files.readAllLines(instances)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                puzzles.add(BatchSolver.parse(line));
+            }
+        }
+
+        Heuristic heuristic = new Heuristic(new Puzzle(goal), heuristicType);
+        List<Result> results = new ArrayList<>();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (String search : searches.split(",")) {
+                Driver.Decisions searchDecision = Driver.Decisions.fromInteger(Integer.parseInt(search.trim()));
+
+                for (int i = 0; i < puzzles.size(); i++) {
+                    Result result = runOne(executor, searchDecision, heuristic, puzzles.get(i), i + 1, seconds);
+                    results.add(result);
+
+                    System.out.println(String.join("\t", result.values()));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return results;
+    }
+
+    // Runs one search on the executor's thread, cancelling it if it takes longer than the time limit. A search that
+    // fails is recorded with the plain error status, since its message could break the result file's format, and the
+    // message goes to standard error instead.
+    private static Result runOne(ExecutorService executor, Driver.Decisions searchDecision, Heuristic heuristic,
+                                 Puzzle start, int instance, long seconds) throws InterruptedException {
+        Result result = new Result();
+        result.search = searchDecision.name();
+        result.instance = instance;
+
+        Search search;
+        try {
+            search = createSearch(searchDecision, heuristic, start);
+        } catch (RuntimeException e) {
+            result.status = ERROR;
+            System.err.println(result.key() + " failed: " + e);
+            return result;
+        }
+
+        long startTime = System.nanoTime();
+        Future<Node> future = executor.submit(search::search);
+        try {
+            Node solution;
+            try {
+                solution = future.get(seconds, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                search.cancel();
+                solution = future.get();
+            }
+
+            result.status = SOLVED;
+            result.length = search.lengthSolution(solution);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SearchCancelledException) {
+                result.status = TIMEOUT;
+            } else if (e.getCause() instanceof OutOfMemoryError) {
+                result.status = OUT_OF_MEMORY;
+            } else {
+                result.status = ERROR;
+                System.err.println(result.key() + " failed: " + e.getCause());
+            }
+        }
+
+        result.seconds = (System.nanoTime() - startTime) / 1e9;
+        result.expanded = search.getNumExpanded();
+        result.nodesPerSecond = result.expanded / result.seconds;
+        result.maxOpenClosed = search.getMaxOpenClosed();
+
+        return result;
+    }
+
+    private static Search createSearch(Driver.Decisions searchDecision, Heuristic heuristic, Puzzle start) {
+        switch (searchDecision) {
+            case A_STAR:
+                return new AStarSearch(new SearchContext(heuristic, 1), start, AStarSearch.BUCKET_OPEN_LIST);
+            case ANYTIME_WA_STAR:
+                return new AnytimeWAStarSearch(new SearchContext(heuristic, WEIGHT), start);
+            case ARA_STAR:
+                return new ARAStarSearch(new SearchContext(heuristic, ARA_WEIGHT), start, ARA_WEIGHT_DECREASE);
+            case IDA_STAR:
+                return new IDAStarSearch(new SearchContext(heuristic, 1), start);
+            case BIDIRECTIONAL:
+                return new BidirectionalSearch(new SearchContext(heuristic, 1), start);
+            case EXTERNAL_A_STAR:
+                return new ExternalAStarSearch(new SearchContext(heuristic, 1), start, null);
+            case FRINGE:
+                return new FringeSearch(new SearchContext(heuristic, 1), start);
+            case DISTANCE_TABLE:
+                return new DistanceTableSearch(new SearchContext(heuristic, 1), start);
+            default:
+                throw new IllegalArgumentException("Only the single threaded searches can be benchmarked");
+        }
+    }
+
+    // Writes JSON if the file name ends in .json and CSV otherwise.
+    private static void write(List<Result> results, Path file) throws IOException {
+        boolean json = file.toString().endsWith(".json");
+
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            if (!json) {
+                out.println(String.join(",", COLUMNS));
+                for (Result result : results) {
+                    out.println(String.join(",", result.values()));
+                }
+                return;
+            }
+
+            // One object per line, which is what read() expects.
+            out.println("[");
+            for (int i = 0; i < results.size(); i++) {
+                String[] values = results.get(i).values();
+                StringBuilder sb = new StringBuilder("  {");
+
+                for (int j = 0; j < COLUMNS.length; j++) {
+                    boolean quoted = j == 0 || j == 2;
+                    sb.append(j == 0 ? "" : ", ").append('"').append(COLUMNS[j]).append("\": ");
+                    sb.append(quoted ? "\"" + values[j] + "\"" : values[j]);
+                }
+
+                out.println(sb.append(i == results.size() - 1 ? "}" : "},"));
+            }
+            out.println("]");
+        }
+    }
+
+    // Reads a result file written by write().
+    private static List<Result> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        List<Result> ret = new ArrayList<>();
+
+        if (file.toString().endsWith(".json")) {
+            Pattern field = Pattern.compile("\"(\\w+)\":\\s*(\"[^\"]*\"|[^,}\\s]+)");
+
+            for (String line : lines) {
+                if (!line.trim().startsWith("{")) {
+                    continue;
+                }
+
+                Map<String, String> values = new LinkedHashMap<>();
+                Matcher matcher = field.matcher(line);
+                while (matcher.find()) {
+                    values.put(matcher.group(1), matcher.group(2).replace("\"", ""));
+                }
+                ret.add(Result.fromValues(values));
+            }
+
+            return ret;
+        }
+
+        String[] header = lines.get(0).split(",");
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(",");
+
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < header.length; i++) {
+                values.put(header[i], fields[i]);
+            }
+            ret.add(Result.fromValues(values));
+        }
+
+        return ret;
+    }
+
+    // Compares every run in the current results with the same search and instance in the baseline. A run regressed if
+    // it no longer solves the instance, finds a different solution length, or expands more nodes or takes more time
+    // than the tolerance allows (times are only compared for runs that took at least MIN_COMPARED_SECONDS). Totals for
+    // each search are printed at the end. Returns whether anything regressed.
+    private static boolean diff(List<Result> baseline, List<Result> current, double tolerance) {
+        Map<String, Result> before = new LinkedHashMap<>();
+        for (Result result : baseline) {
+            before.put(result.key(), result);
+        }
+
+        Map<String, double[]> totals = new LinkedHashMap<>();
+        int regressions = 0;
+
+        for (Result result : current) {
+            Result old = before.get(result.key());
+            if (old == null) {
+                System.out.println("NEW        " + result.key() + ": " + result.status);
+                continue;
+            }
+
+            List<String> problems = new ArrayList<>();
+
+            if (old.status.equals(SOLVED) && !result.status.equals(SOLVED)) {
+                problems.add(result.status);
+            } else if (old.status.equals(SOLVED) && old.length != result.length) {
+                problems.add("length " + old.length + " -> " + result.length);
+            }
+
+            if (old.status.equals(SOLVED) && result.status.equals(SOLVED)) {
+                if (percentChange(old.expanded, result.expanded) > tolerance) {
+                    problems.add(String.format(Locale.ROOT, "expanded %d -> %d (%+.1f%%)", old.expanded,
+                            result.expanded, percentChange(old.expanded, result.expanded)));
+                }
+
+                if (old.seconds >= MIN_COMPARED_SECONDS &&
+                        percentChange(old.seconds, result.seconds) > tolerance) {
+                    problems.add(String.format(Locale.ROOT, "seconds %.3f -> %.3f (%+.1f%%)", old.seconds,
+                            result.seconds, percentChange(old.seconds, result.seconds)));
+                }
+
+                double[] total = totals.computeIfAbsent(result.search, search -> new double[4]);
+                total[0] += old.expanded;
+                total[1] += result.expanded;
+                total[2] += old.seconds;
+                total[3] += result.seconds;
+            }
+
+            if (!old.status.equals(SOLVED) && result.status.equals(SOLVED)) {
+                System.out.println("FIXED      " + result.key() + ": now " + SOLVED);
+            }
+
+            if (!problems.isEmpty()) {
+                regressions++;
+                System.out.println("REGRESSION " + result.key() + ": " + String.join(", ", problems));
+            }
+        }
+
+        System.out.println();
+        System.out.println(String.format("%-20s %12s %12s %12s", "Search", "expanded", "seconds", "nodes/second"));
+        for (Map.Entry<String, double[]> entry : totals.entrySet()) {
+            double[] total = entry.getValue();
+            System.out.println(String.format(Locale.ROOT, "%-20s %+11.1f%% %+11.1f%% %+11.1f%%", entry.getKey(),
+                    percentChange(total[0], total[1]), percentChange(total[2], total[3]),
+                    percentChange(total[0] / total[2], total[1] / total[3])));
+        }
+
+        System.out.println();
+        System.out.println(regressions + " regression(s) with a tolerance of " + tolerance + "%");
+
+        return regressions > 0;
+    }
+
+    private static double percentChange(double before, double after) {
+        return before == 0 ? (after == 0 ? 0 : Double.POSITIVE_INFINITY) : (after - before) * 100 / before;
+    }
+
+    // Prints solvable 15 puzzle instances for the goal with the empty space in the bottom right corner. Random
+    // instances are uniformly random permutations with the right parity, like the standard random instance sets.
+    // Walk instances are random walks of the given length from the goal, which keeps them easy enough for A*.
+    private static void generate(String kind, int count, long seed, int walkLength) {
+        int dimensions = 4;
+        int tiles = dimensions * dimensions;
+        Random random = new Random(seed);
+
+        System.out.println("# " + count + " " + kind + " instances, seed " + seed +
+                (kind.equals("walk") ? ", walk length " + walkLength : ""));
+
+        for (int n = 0; n < count; n++) {
+            int[] board = new int[tiles];
+            for (int i = 0; i < tiles; i++) {
+                board[i] = (i + 1) % tiles;
+            }
+
+            int empty = tiles - 1;
+
+            if (kind.equals("walk")) {
+                int previous = -1;
+                for (int step = 0; step < walkLength; step++) {
+                    int next;
+                    do {
+                        next = neighbour(empty, random.nextInt(4), dimensions);
+                    } while (next < 0 || next == previous);
+
+                    board[empty] = board[next];
+                    board[next] = 0;
+                    previous = empty;
+                    empty = next;
+                }
+            } else {
+                do {
+                    for (int i = tiles - 1; i > 0; i--) {
+                        int j = random.nextInt(i + 1);
+                        int swap = board[i];
+                        board[i] = board[j];
+                        board[j] = swap;
+                    }
+                } while (!solvable(board, dimensions));
+            }
+
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < tiles; i++) {
+                sb.append(i == 0 ? "" : " ").append(board[i]);
+            }
+            System.out.println(sb);
+        }
+    }
+
+    // Returns the position next to the given one in a direction (0 to 3), or -1 if that is off the board.
+    private static int neighbour(int position, int direction, int dimensions) {
+        int row = position / dimensions;
+        int col = position % dimensions;
+
+        switch (direction) {
+            case 0:
+                return row > 0 ? position - dimensions : -1;
+            case 1:
+                return row < dimensions - 1 ? position + dimensions : -1;
+            case 2:
+                return col > 0 ? position - 1 : -1;
+            default:
+                return col < dimensions - 1 ? position + 1 : -1;
+        }
+    }
+
+    // On an even width board a position is solvable for the goal with the empty space in the bottom right corner when
+    // the number of inversions plus the row of the empty space is odd, counting rows from the top.
+    private static boolean solvable(int[] board, int dimensions) {
+        int inversions = 0;
+        int emptyRow = 0;
+
+        for (int i = 0; i < board.length; i++) {
+            if (board[i] == 0) {
+                emptyRow = i / dimensions;
+                continue;
+            }
+
+            for (int j = i + 1; j < board.length; j++) {
+                if (board[j] != 0 && board[j] < board[i]) {
+                    inversions++;
+                }
+            }
+        }
+
+        return (inversions + emptyRow) % 2 == 1;
+    }
+}
@@ -0,0 +1,275 @@
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+// Microbenchmarks for the expansion hot path: generating successors, evaluating the heuristics, the goal test,
+// hashing and comparing Puzzles, and insert and lookup throughput of the open and closed lists. Each benchmark is
+// warmed up and then measured for a fixed number of timed iterations, and reports nanoseconds per operation and
+// bytes allocated per operation (read from the JVM's per thread allocation counter, the same number JMH's GC profiler
+// reports as gc.alloc.rate.norm). Run it from the repository root with
+//
+//     javac -d out *.java benchmarks/*.java && java -cp out MicroBenchmark [goal file] [filter]
+//
+// where filter only runs the benchmarks whose name contains it. Compare runs before and after a hot path change on
+// the same machine, and only trust differences that are larger than the spread between iterations.
+public class MicroBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 1_000_000_000L;
+    private static final int OPERATIONS_PER_CHECK = 1 << 10;
+
+    // Boards are scrambled by random walks from the goal with a fixed seed so every run sees the same states.
+    private static final int BOARDS = 1 << 16;
+    private static final int WALK_LENGTH = 80;
+    private static final long SEED = 15;
+
+    private static final int OPEN_SIZE = 1 << 12;
+
+    // One operation of a benchmark. The argument counts up from 0, and the result is folded into a sink so the JIT
+    // cannot throw the work away.
+    private interface Operation {
+        long run(int i);
+    }
+
+    // A benchmark's setup makes its operation and only runs if the benchmark is selected, so benchmarks needing
+    // expensive state, like the pattern database, don't slow down runs that filter them out.
+    private static class Benchmark {
+        private final String name;
+        private final Supplier<Operation> setup;
+
+        private Benchmark(String name, Operation operation) {
+            this(name, () -> operation);
+        }
+
+        private Benchmark(String name, Supplier<Operation> setup) {
+            this.name = name;
+            this.setup = setup;
+        }
+    }
+
+    private static volatile long sink;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        Puzzle goal = args.length > 0 ? new Puzzle(Paths.get(args[0])) : defaultGoal();
+        String filter = args.length > 1 ? args[1] : "";
+
+        System.out.println(String.format("%-40s %12s %12s %12s", "Benchmark", "ns/op", "+/-", "bytes/op"));
+        for (Benchmark benchmark : benchmarks(goal)) {
+            if (benchmark.name.contains(filter)) {
+                measure(benchmark);
+            }
+        }
+    }
+
+    private static List<Benchmark> benchmarks(Puzzle goal) {
+        int mask = BOARDS - 1;
+        int openMask = OPEN_SIZE - 1;
+
+        Heuristic simple = new Heuristic(goal, Node.SIMPLE_HEURISTIC);
+        Heuristic manhattan = new Heuristic(goal, Node.MANHATTAN_HEURISTIC);
+        Heuristic linearConflict = new Heuristic(goal, Node.LINEAR_CONFLICT_HEURISTIC);
+        Supplier<Heuristic> patternDatabase = patternDatabase(goal);
+
+        SearchContext manhattanContext = new SearchContext(manhattan, 1);
+        SearchContext linearConflictContext = new SearchContext(linearConflict, 1);
+
+        long[] boards = scramble(goal.pack(), goal.getDimensions(), manhattanContext.getMoves());
+        Node[] manhattanNodes = nodes(boards, goal.getDimensions(), manhattanContext);
+        Node[] linearConflictNodes = nodes(boards, goal.getDimensions(), linearConflictContext);
+
+        // The first legal move of every board, for the incremental heuristic updates.
+        int[] from = new int[BOARDS];
+        int[] to = new int[BOARDS];
+        int[] tiles = new int[BOARDS];
+        for (int i = 0; i < BOARDS; i++) {
+            to[i] = manhattanNodes[i].getEmptySpace();
+            from[i] = manhattanContext.getMoves()[to[i]][0];
+            tiles[i] = PackedBoard.getValue(boards[i], from[i]);
+        }
+
+        Puzzle[] puzzles = new Puzzle[BOARDS];
+        Puzzle[] copies = new Puzzle[BOARDS];
+        for (int i = 0; i < BOARDS; i++) {
+            puzzles[i] = new Puzzle(boards[i], goal.getDimensions());
+            copies[i] = new Puzzle(puzzles[i]);
+        }
+
+        StateTable insertTable = new StateTable();
+        StateTable lookupTable = new StateTable();
+        for (int i = 0; i < BOARDS; i++) {
+            lookupTable.put(boards[i], i);
+        }
+
+        OpenList heapOpen = new HeapOpenList(Comparator.comparingInt(Node::getfValue));
+        OpenList bucketOpen = new BucketOpenList();
+        for (int i = 0; i < OPEN_SIZE; i++) {
+            heapOpen.add(manhattanNodes[i]);
+            bucketOpen.add(manhattanNodes[i]);
+        }
+
+        List<Benchmark> ret = new ArrayList<>();
+
+        ret.add(new Benchmark("Node.getSuccessors (Manhattan)",
+                i -> manhattanNodes[i & mask].getSuccessors().size()));
+        ret.add(new Benchmark("Node.getSuccessors (linear conflict)",
+                i -> linearConflictNodes[i & mask].getSuccessors().size()));
+        ret.add(new Benchmark("Node.isGoal",
+                i -> manhattanNodes[i & mask].isGoal() ? 1 : 0));
+
+        ret.add(new Benchmark("Heuristic.evaluate (simple)", i -> simple.evaluate(boards[i & mask])));
+        ret.add(new Benchmark("Heuristic.evaluate (Manhattan)", i -> manhattan.evaluate(boards[i & mask])));
+        ret.add(new Benchmark("Heuristic.evaluate (linear conflict)",
+                i -> linearConflict.evaluate(boards[i & mask])));
+        ret.add(new Benchmark("Heuristic.evaluate (pattern database)", () -> {
+            Heuristic heuristic = patternDatabase.get();
+            return i -> heuristic.evaluate(boards[i & mask]);
+        }));
+        ret.add(new Benchmark("Heuristic.delta (simple)",
+                i -> simple.delta(boards[i & mask], tiles[i & mask], from[i & mask], to[i & mask])));
+        ret.add(new Benchmark("Heuristic.delta (Manhattan)",
+                i -> manhattan.delta(boards[i & mask], tiles[i & mask], from[i & mask], to[i & mask])));
+        ret.add(new Benchmark("Heuristic.delta (linear conflict)",
+                i -> linearConflict.delta(boards[i & mask], tiles[i & mask], from[i & mask], to[i & mask])));
+        ret.add(new Benchmark("Heuristic.delta (pattern database)", () -> {
+            Heuristic heuristic = patternDatabase.get();
+            return i -> heuristic.delta(boards[i & mask], tiles[i & mask], from[i & mask], to[i & mask]);
+        }));
+
+        ret.add(new Benchmark("Puzzle.hashCode", i -> puzzles[i & mask].hashCode()));
+        ret.add(new Benchmark("Puzzle.equals", i -> puzzles[i & mask].equals(copies[i & mask]) ? 1 : 0));
+
+        // Inserting refills the table from empty every BOARDS operations, so resizing is part of the cost.
+        ret.add(new Benchmark("StateTable.put", i -> {
+            if ((i & mask) == 0) {
+                insertTable.clear();
+            }
+            return insertTable.put(boards[i & mask], i);
+        }));
+        ret.add(new Benchmark("StateTable.get (hit)", i -> lookupTable.get(boards[i & mask])));
+        ret.add(new Benchmark("StateTable.get (miss)", i -> lookupTable.get(boards[i & mask] ^ 1L << 60)));
+
+        // The open lists are kept at a steady size by polling one node for every node added.
+        ret.add(new Benchmark("HeapOpenList add+poll", i -> {
+            heapOpen.add(manhattanNodes[i & openMask]);
+            return heapOpen.poll().getfValue();
+        }));
+        ret.add(new Benchmark("BucketOpenList add+poll", i -> {
+            bucketOpen.add(manhattanNodes[i & openMask]);
+            return bucketOpen.poll().getfValue();
+        }));
+
+        return ret;
+    }
+
+    // Loads or builds the pattern database the first time one of its benchmarks asks for it, then hands out the same
+    // heuristic.
+    private static Supplier<Heuristic> patternDatabase(Puzzle goal) {
+        Heuristic[] heuristic = new Heuristic[1];
+        return () -> {
+            if (heuristic[0] == null) {
+                heuristic[0] = new Heuristic(goal, Node.PATTERN_DATABASE_HEURISTIC);
+            }
+
+            return heuristic[0];
+        };
+    }
+
+    // Warms the benchmark up, then prints the mean and standard deviation of the timed iterations.
+    private static void measure(Benchmark benchmark) {
+        Operation operation = benchmark.setup.get();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration(operation);
+        }
+
+        double[] nanosPerOp = new double[MEASUREMENT_ITERATIONS];
+        double bytesPerOp = 0;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            double[] result = iteration(operation);
+            nanosPerOp[i] = result[0];
+            bytesPerOp += result[1] / MEASUREMENT_ITERATIONS;
+        }
+
+        double mean = 0;
+        for (double value : nanosPerOp) {
+            mean += value / MEASUREMENT_ITERATIONS;
+        }
+
+        double variance = 0;
+        for (double value : nanosPerOp) {
+            variance += (value - mean) * (value - mean) / MEASUREMENT_ITERATIONS;
+        }
+
+        System.out.println(String.format("%-40s %12.2f %12.2f %12.2f", benchmark.name, mean, Math.sqrt(variance),
+                bytesPerOp));
+    }
+
+    // Runs operations for one iteration's worth of time and returns nanoseconds and bytes allocated per operation.
+    private static double[] iteration(Operation operation) {
+        long threadId = Thread.currentThread().getId();
+        long result = 0;
+        int operations = 0;
+
+        long startBytes = THREADS.getThreadAllocatedBytes(threadId);
+        long startTime = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < OPERATIONS_PER_CHECK; i++) {
+                result += operation.run(operations++);
+            }
+            elapsed = System.nanoTime() - startTime;
+        } while (elapsed < ITERATION_NANOS);
+        long bytes = THREADS.getThreadAllocatedBytes(threadId) - startBytes;
+
+        sink += result;
+
+        return new double[] {(double)elapsed / operations, (double)bytes / operations};
+    }
+
+    // Makes BOARDS boards by random walks from the goal that never undo the previous move.
+    private static long[] scramble(long goal, int dimensions, int[][] moves) {
+        Random random = new Random(SEED);
+        int emptySpace = PackedBoard.getPosition(goal, 0, dimensions * dimensions);
+        long[] ret = new long[BOARDS];
+
+        for (int i = 0; i < BOARDS; i++) {
+            long board = goal;
+            int empty = emptySpace;
+            int previous = -1;
+
+            for (int step = 0; step < WALK_LENGTH; step++) {
+                int move;
+                do {
+                    move = moves[empty][random.nextInt(moves[empty].length)];
+                } while (move == previous);
+
+                board = PackedBoard.move(board, empty, move);
+                previous = empty;
+                empty = move;
+            }
+
+            ret[i] = board;
+        }
+
+        return ret;
+    }
+
+    private static Node[] nodes(long[] boards, int dimensions, SearchContext context) {
+        Node[] ret = new Node[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            ret[i] = new Node(new Puzzle(boards[i], dimensions), context);
+        }
+        return ret;
+    }
+
+    private static Puzzle defaultGoal() {
+        return new Puzzle(new int[][] {{1, 2, 3, 4}, {5, 6, 7, 8}, {9, 10, 11, 12}, {13, 14, 15, 0}});
+    }
+}